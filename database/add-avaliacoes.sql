@@ -0,0 +1,22 @@
+-- Script para criar a tabela de avaliações (POST /api/feirantes/{id}/avaliacoes)
+-- e a coluna soma_avaliacoes, usada na atualização incremental da média
+
+ALTER TABLE public.feirantes
+ADD COLUMN IF NOT EXISTS soma_avaliacoes INTEGER NOT NULL DEFAULT 0;
+
+-- Aproxima a soma das médias já existentes (dados de exemplo sem avaliações individuais)
+UPDATE public.feirantes
+SET soma_avaliacoes = ROUND(COALESCE(avaliacao, 0) * COALESCE(num_avaliacoes, 0))
+WHERE soma_avaliacoes = 0;
+
+-- Avaliações dos feirantes (uma por cliente; reavaliar troca a nota)
+CREATE TABLE IF NOT EXISTS public.avaliacoes (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  cliente_id UUID NOT NULL REFERENCES public.profiles(id) ON DELETE CASCADE,
+  nota SMALLINT NOT NULL CHECK (nota BETWEEN 1 AND 5),
+  comentario TEXT,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  UNIQUE(feirante_id, cliente_id)
+);
@@ -0,0 +1,20 @@
+-- Script para criar a tabela de carrinho no servidor
+-- Necessário para os endpoints /api/carrinho e /api/checkout em bancos já existentes
+
+CREATE TABLE IF NOT EXISTS public.carrinho_itens (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  cliente_id UUID NOT NULL REFERENCES public.profiles(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL REFERENCES public.produtos(id) ON DELETE CASCADE,
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  quantidade INTEGER NOT NULL CHECK (quantidade > 0),
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  UNIQUE(cliente_id, produto_id, feirante_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_carrinho_itens_cliente_id ON public.carrinho_itens(cliente_id);
+
+DROP TRIGGER IF EXISTS update_carrinho_itens_updated_at ON public.carrinho_itens;
+CREATE TRIGGER update_carrinho_itens_updated_at
+  BEFORE UPDATE ON public.carrinho_itens
+  FOR EACH ROW EXECUTE FUNCTION public.update_updated_at_column();
@@ -0,0 +1,10 @@
+-- Script para adicionar a coluna agregado na tabela pedidos
+-- Marca os pedidos já somados nos agregados de vendas: o evento de venda só soma (ou subtrai)
+-- os pedidos cuja marca ele troca, e a reconstrução de um mês acerta as marcas antes de recontar
+
+ALTER TABLE public.pedidos
+ADD COLUMN IF NOT EXISTS agregado BOOLEAN NOT NULL DEFAULT false;
+
+-- Pedidos existentes como os eventos já os deixaram nos agregados; se as tabelas de agregados
+-- acabaram de ser criadas, popule com vendas.rollup.backfill.habilitado=true
+UPDATE public.pedidos SET agregado = (status <> 'cancelado') WHERE agregado <> (status <> 'cancelado');
@@ -0,0 +1,9 @@
+-- Script para adicionar a coluna sku na tabela produtos
+-- Usada como chave opcional da importação em lote (POST /api/produtos/bulk)
+
+ALTER TABLE public.produtos
+ADD COLUMN IF NOT EXISTS sku TEXT;
+
+-- Índices usados para localizar produtos existentes durante a importação
+CREATE INDEX IF NOT EXISTS idx_produtos_user_id_sku ON public.produtos(user_id, sku) WHERE sku IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_produtos_user_id_nome ON public.produtos(user_id, nome);
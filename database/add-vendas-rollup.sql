@@ -0,0 +1,46 @@
+-- Script para criar as tabelas de agregados de vendas (GET /api/feirantes/stats/vendas)
+-- Depois de criar, popular com vendas.rollup.backfill.habilitado=true na primeira subida da API
+
+-- Agregados de vendas (hora -> dia -> mês), por feirante, feira e produto.
+-- produto_id = 00000000-0000-0000-0000-000000000000 guarda o total do feirante na feira.
+-- Buckets no horário local da feira (vendas.rollup.zona).
+CREATE TABLE IF NOT EXISTS public.vendas_hora (
+  bucket TIMESTAMP NOT NULL,
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  feira_id UUID NOT NULL REFERENCES public.feiras(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL,
+  receita DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantidade BIGINT NOT NULL DEFAULT 0,
+  pedidos BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (feirante_id, bucket, feira_id, produto_id)
+);
+
+CREATE TABLE IF NOT EXISTS public.vendas_dia (
+  bucket DATE NOT NULL,
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  feira_id UUID NOT NULL REFERENCES public.feiras(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL,
+  receita DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantidade BIGINT NOT NULL DEFAULT 0,
+  pedidos BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (feirante_id, bucket, feira_id, produto_id)
+);
+
+CREATE TABLE IF NOT EXISTS public.vendas_mes (
+  bucket DATE NOT NULL, -- primeiro dia do mês
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  feira_id UUID NOT NULL REFERENCES public.feiras(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL,
+  receita DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantidade BIGINT NOT NULL DEFAULT 0,
+  pedidos BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (feirante_id, bucket, feira_id, produto_id)
+);
+
+-- Agregados de vendas: a reconstrução apaga por intervalo de bucket
+CREATE INDEX IF NOT EXISTS idx_vendas_hora_bucket ON public.vendas_hora(bucket);
+CREATE INDEX IF NOT EXISTS idx_vendas_dia_bucket ON public.vendas_dia(bucket);
+CREATE INDEX IF NOT EXISTS idx_vendas_mes_bucket ON public.vendas_mes(bucket);
@@ -56,6 +56,7 @@ CREATE TABLE IF NOT EXISTS public.feirantes (
   avatar TEXT,
   avaliacao DECIMAL(2,1) DEFAULT 0 CHECK (avaliacao >= 0 AND avaliacao <= 5),
   num_avaliacoes INTEGER DEFAULT 0,
+  soma_avaliacoes INTEGER NOT NULL DEFAULT 0, -- soma das notas; avaliacao = soma / num
   created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
   updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
   UNIQUE(user_id, feira_id)
@@ -72,6 +73,7 @@ CREATE TABLE IF NOT EXISTS public.produtos (
   unidade TEXT NOT NULL DEFAULT 'unidade',
   categoria TEXT,
   imagem TEXT,
+  sku TEXT, -- Código do produto no sistema do feirante (chave opcional da importação em lote)
   estoque INTEGER NOT NULL DEFAULT 0 CHECK (estoque >= 0),
   disponivel BOOLEAN NOT NULL DEFAULT true,
   created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
@@ -87,6 +89,7 @@ CREATE TABLE IF NOT EXISTS public.pedidos (
   total DECIMAL(10,2) NOT NULL CHECK (total >= 0),
   status pedido_status NOT NULL DEFAULT 'pendente',
   observacoes TEXT,
+  agregado BOOLEAN NOT NULL DEFAULT false, -- Somado nos agregados de vendas (vendas_hora/dia/mes)
   created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
   updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
@@ -102,6 +105,69 @@ CREATE TABLE IF NOT EXISTS public.pedido_itens (
   created_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 
+-- Carrinho Itens table (carrinho do cliente mantido no servidor)
+CREATE TABLE IF NOT EXISTS public.carrinho_itens (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  cliente_id UUID NOT NULL REFERENCES public.profiles(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL REFERENCES public.produtos(id) ON DELETE CASCADE,
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  quantidade INTEGER NOT NULL CHECK (quantidade > 0),
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  UNIQUE(cliente_id, produto_id, feirante_id)
+);
+
+-- Avaliações dos feirantes (uma por cliente; reavaliar troca a nota)
+CREATE TABLE IF NOT EXISTS public.avaliacoes (
+  id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  cliente_id UUID NOT NULL REFERENCES public.profiles(id) ON DELETE CASCADE,
+  nota SMALLINT NOT NULL CHECK (nota BETWEEN 1 AND 5),
+  comentario TEXT,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  UNIQUE(feirante_id, cliente_id)
+);
+
+-- Agregados de vendas (hora -> dia -> mês), por feirante, feira e produto.
+-- produto_id = 00000000-0000-0000-0000-000000000000 guarda o total do feirante na feira.
+-- Buckets no horário local da feira (vendas.rollup.zona).
+CREATE TABLE IF NOT EXISTS public.vendas_hora (
+  bucket TIMESTAMP NOT NULL,
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  feira_id UUID NOT NULL REFERENCES public.feiras(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL,
+  receita DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantidade BIGINT NOT NULL DEFAULT 0,
+  pedidos BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (feirante_id, bucket, feira_id, produto_id)
+);
+
+CREATE TABLE IF NOT EXISTS public.vendas_dia (
+  bucket DATE NOT NULL,
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  feira_id UUID NOT NULL REFERENCES public.feiras(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL,
+  receita DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantidade BIGINT NOT NULL DEFAULT 0,
+  pedidos BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (feirante_id, bucket, feira_id, produto_id)
+);
+
+CREATE TABLE IF NOT EXISTS public.vendas_mes (
+  bucket DATE NOT NULL, -- primeiro dia do mês
+  feirante_id UUID NOT NULL REFERENCES public.feirantes(id) ON DELETE CASCADE,
+  feira_id UUID NOT NULL REFERENCES public.feiras(id) ON DELETE CASCADE,
+  produto_id UUID NOT NULL,
+  receita DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantidade BIGINT NOT NULL DEFAULT 0,
+  pedidos BIGINT NOT NULL DEFAULT 0,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  PRIMARY KEY (feirante_id, bucket, feira_id, produto_id)
+);
+
 -- Profiles indexes
 CREATE INDEX IF NOT EXISTS idx_profiles_email ON public.profiles(email);
 CREATE INDEX IF NOT EXISTS idx_profiles_tipo ON public.profiles(tipo);
@@ -118,6 +184,8 @@ CREATE INDEX IF NOT EXISTS idx_produtos_user_id ON public.produtos(user_id);
 CREATE INDEX IF NOT EXISTS idx_produtos_feirante_id ON public.produtos(feirante_id);
 CREATE INDEX IF NOT EXISTS idx_produtos_categoria ON public.produtos(categoria);
 CREATE INDEX IF NOT EXISTS idx_produtos_disponivel ON public.produtos(disponivel);
+CREATE INDEX IF NOT EXISTS idx_produtos_user_id_sku ON public.produtos(user_id, sku) WHERE sku IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_produtos_user_id_nome ON public.produtos(user_id, nome);
 
 -- Pedidos indexes
 CREATE INDEX IF NOT EXISTS idx_pedidos_cliente_id ON public.pedidos(cliente_id);
@@ -130,6 +198,14 @@ CREATE INDEX IF NOT EXISTS idx_pedidos_created_at ON public.pedidos(created_at);
 CREATE INDEX IF NOT EXISTS idx_pedido_itens_pedido_id ON public.pedido_itens(pedido_id);
 CREATE INDEX IF NOT EXISTS idx_pedido_itens_produto_id ON public.pedido_itens(produto_id);
 
+-- Carrinho Itens indexes
+CREATE INDEX IF NOT EXISTS idx_carrinho_itens_cliente_id ON public.carrinho_itens(cliente_id);
+
+-- Agregados de vendas: a reconstrução apaga por intervalo de bucket
+CREATE INDEX IF NOT EXISTS idx_vendas_hora_bucket ON public.vendas_hora(bucket);
+CREATE INDEX IF NOT EXISTS idx_vendas_dia_bucket ON public.vendas_dia(bucket);
+CREATE INDEX IF NOT EXISTS idx_vendas_mes_bucket ON public.vendas_mes(bucket);
+
 CREATE OR REPLACE FUNCTION public.update_updated_at_column()
 RETURNS TRIGGER
 LANGUAGE plpgsql
@@ -163,6 +239,10 @@ CREATE TRIGGER update_pedidos_updated_at
   BEFORE UPDATE ON public.pedidos
   FOR EACH ROW EXECUTE FUNCTION public.update_updated_at_column();
 
+CREATE TRIGGER update_carrinho_itens_updated_at
+  BEFORE UPDATE ON public.carrinho_itens
+  FOR EACH ROW EXECUTE FUNCTION public.update_updated_at_column();
+
 INSERT INTO public.feiras (id, nome, localizacao, descricao, dia_da_semana, hora_inicio, hora_fim)
 VALUES 
   (
@@ -182,6 +262,7 @@ COMMENT ON TABLE public.feirantes IS 'Informações dos estandes/feirantes';
 COMMENT ON TABLE public.produtos IS 'Catálogo de produtos dos feirantes';
 COMMENT ON TABLE public.pedidos IS 'Pedidos realizados pelos clientes';
 COMMENT ON TABLE public.pedido_itens IS 'Itens de cada pedido';
+COMMENT ON TABLE public.carrinho_itens IS 'Itens do carrinho de compras de cada cliente';
 
 
 
@@ -104,6 +104,9 @@ INSERT INTO public.feirantes (id, user_id, feira_id, nome_estande, descricao, ca
   )
 ON CONFLICT (id) DO NOTHING;
 
+-- Soma das notas correspondente às médias de exemplo (base da atualização incremental)
+UPDATE public.feirantes SET soma_avaliacoes = ROUND(avaliacao * num_avaliacoes);
+
 -- ============================================
 -- INSERIR PRODUTOS
 -- ============================================
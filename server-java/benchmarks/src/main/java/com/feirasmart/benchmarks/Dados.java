@@ -0,0 +1,116 @@
+package com.feirasmart.benchmarks;
+
+import com.feirasmart.model.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Grafos de entidades com formato parecido com o do banco de desenvolvimento
+ */
+final class Dados {
+    private Dados() {
+    }
+
+    static User usuario(UserType tipo) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("usuario@feirasmart.com");
+        user.setNome("Maria da Silva");
+        user.setTipo(tipo);
+        user.setTelefone("(11) 98765-4321");
+        user.setPasswordHash("$2a$10$abcdefghijklmnopqrstuuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012");
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        return user;
+    }
+
+    static Feira feira() {
+        Feira feira = new Feira();
+        feira.setId(UUID.randomUUID());
+        feira.setNome("Feira Orgânica do Parque");
+        feira.setLocalizacao("Rua das Flores, 123 - Centro");
+        feira.setDescricao("Produtos orgânicos direto do produtor");
+        feira.setDiaDaSemana(6);
+        feira.setHoraInicio(LocalTime.of(7, 0));
+        feira.setHoraFim(LocalTime.of(13, 0));
+        feira.setImagem("/uploads/feiras/banner.jpg");
+        feira.setCreatedAt(LocalDateTime.now());
+        feira.setUpdatedAt(LocalDateTime.now());
+        return feira;
+    }
+
+    static Feirante feirante(Feira feira) {
+        Feirante feirante = new Feirante();
+        feirante.setId(UUID.randomUUID());
+        feirante.setUser(usuario(UserType.FEIRANTE));
+        feirante.setFeira(feira);
+        feirante.setNomeEstande("Hortifruti da Maria");
+        feirante.setDescricao("Verduras e legumes frescos");
+        feirante.setCategoria("Hortifruti");
+        feirante.setAvaliacao(new BigDecimal("4.7"));
+        feirante.setNumAvaliacoes(132);
+        feirante.setCreatedAt(LocalDateTime.now());
+        feirante.setUpdatedAt(LocalDateTime.now());
+        return feirante;
+    }
+
+    static List<Produto> produtos(Feirante feirante, int quantidade) {
+        List<Produto> produtos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Produto produto = new Produto();
+            produto.setId(UUID.randomUUID());
+            produto.setFeirante(feirante);
+            produto.setUser(feirante.getUser());
+            produto.setNome("Produto " + i);
+            produto.setDescricao("Descrição do produto " + i + ", colhido na semana");
+            produto.setPreco(new BigDecimal("4.50").add(BigDecimal.valueOf(i % 20)));
+            produto.setUnidade("kg");
+            produto.setCategoria(i % 2 == 0 ? "Frutas" : "Verduras");
+            produto.setImagem("/uploads/feiras/" + UUID.randomUUID() + ".jpg");
+            produto.setSku("SKU-" + i);
+            produto.setEstoque(50 + i);
+            produto.setDisponivel(true);
+            produto.setCreatedAt(LocalDateTime.now());
+            produto.setUpdatedAt(LocalDateTime.now());
+            produtos.add(produto);
+        }
+        return produtos;
+    }
+
+    static Pedido pedido(int numItens) {
+        Feira feira = feira();
+        Feirante feirante = feirante(feira);
+        Pedido pedido = new Pedido();
+        pedido.setId(UUID.randomUUID());
+        pedido.setCliente(usuario(UserType.CLIENTE));
+        pedido.setFeirante(feirante);
+        pedido.setFeira(feira);
+        pedido.setStatus(PedidoStatus.CONFIRMADO);
+        pedido.setObservacoes("Entregar na barraca 12");
+        pedido.setCreatedAt(LocalDateTime.now());
+        pedido.setUpdatedAt(LocalDateTime.now());
+
+        List<PedidoItem> itens = new ArrayList<>(numItens);
+        BigDecimal total = BigDecimal.ZERO;
+        for (Produto produto : produtos(feirante, numItens)) {
+            PedidoItem item = new PedidoItem();
+            item.setId(UUID.randomUUID());
+            item.setPedido(pedido);
+            item.setProduto(produto);
+            item.setNomeProduto(produto.getNome());
+            item.setQuantidade(2);
+            item.setPreco(produto.getPreco());
+            item.setCreatedAt(LocalDateTime.now());
+            itens.add(item);
+            total = total.add(produto.getPreco().multiply(BigDecimal.valueOf(2)));
+        }
+        pedido.setItens(itens);
+        pedido.setTotal(total);
+        return pedido;
+    }
+}
@@ -0,0 +1,75 @@
+package com.feirasmart.benchmarks;
+
+import com.feirasmart.service.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Upload de imagem (FileStorageService.saveImage) num diretório temporário.
+ * Cada arquivo salvo é apagado logo depois, para o disco não encher e para
+ * que o conteúdo repetido seja gravado de novo (e não deduplicado).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileStorageBenchmark {
+    @Param({"65536", "1048576"})
+    private int tamanho;
+
+    private Path diretorio;
+    private FileStorageService fileStorageService;
+    private MockMultipartFile arquivo;
+    private String salvo;
+
+    @Setup
+    public void setup() throws IOException {
+        diretorio = Files.createTempDirectory("feirasmart-bench-");
+        fileStorageService = new FileStorageService();
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", diretorio.toString());
+        ReflectionTestUtils.setField(fileStorageService, "maxFileSize", 5242880L);
+        ReflectionTestUtils.setField(fileStorageService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(fileStorageService, "eventPublisher", (ApplicationEventPublisher) evento -> { });
+
+        byte[] conteudo = new byte[tamanho];
+        new Random(42).nextBytes(conteudo);
+        arquivo = new MockMultipartFile("file", "foto.jpg", "image/jpeg", conteudo);
+    }
+
+    @Benchmark
+    public String saveImage() throws IOException {
+        salvo = fileStorageService.saveImage(arquivo);
+        return salvo;
+    }
+
+    @TearDown(Level.Invocation)
+    public void apagarSalvo() throws IOException {
+        if (salvo != null) {
+            // URL devolvida: /uploads/feiras/{nome}, relativa ao diretório de uploads
+            Files.deleteIfExists(diretorio.resolve(salvo.substring("/uploads/".length())));
+            salvo = null;
+        }
+    }
+
+    @TearDown
+    public void apagarDiretorio() throws IOException {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path p : arquivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
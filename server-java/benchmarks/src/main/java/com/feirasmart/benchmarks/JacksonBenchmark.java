@@ -0,0 +1,54 @@
+package com.feirasmart.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feirasmart.config.JacksonConfig;
+import com.feirasmart.model.Pedido;
+import com.feirasmart.model.Produto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Serialização de pedidos e do catálogo com o mesmo ObjectMapper da API (JacksonConfig)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonBenchmark {
+    @Param({"5", "50"})
+    private int itensPorPedido;
+
+    private ObjectMapper objectMapper;
+    private Pedido pedido;
+    private List<Pedido> pedidos;
+    private List<Produto> catalogo;
+
+    @Setup
+    public void setup() {
+        objectMapper = new JacksonConfig().objectMapper(Jackson2ObjectMapperBuilder.json());
+        pedido = Dados.pedido(itensPorPedido);
+        pedidos = Stream.generate(() -> Dados.pedido(itensPorPedido)).limit(20).toList();
+        catalogo = Dados.produtos(Dados.feirante(Dados.feira()), 200);
+    }
+
+    @Benchmark
+    public byte[] pedido() throws Exception {
+        return objectMapper.writeValueAsBytes(pedido);
+    }
+
+    @Benchmark
+    public byte[] listaDePedidos() throws Exception {
+        return objectMapper.writeValueAsBytes(pedidos);
+    }
+
+    @Benchmark
+    public byte[] catalogo() throws Exception {
+        return objectMapper.writeValueAsBytes(catalogo);
+    }
+}
@@ -0,0 +1,47 @@
+package com.feirasmart.benchmarks;
+
+import com.feirasmart.config.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração e validação de token: o filtro JWT valida o token em toda requisição autenticada
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+    private JwtUtil jwtUtil;
+    private UUID userId;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmark-secret-com-pelo-menos-32-bytes!!");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 604800000L);
+        userId = UUID.randomUUID();
+        token = jwtUtil.generateToken(userId, "usuario@feirasmart.com", "CLIENTE");
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtUtil.generateToken(userId, "usuario@feirasmart.com", "CLIENTE");
+    }
+
+    @Benchmark
+    public Boolean validarToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public UUID extrairUserId() {
+        return jwtUtil.getUserIdFromToken(token);
+    }
+}
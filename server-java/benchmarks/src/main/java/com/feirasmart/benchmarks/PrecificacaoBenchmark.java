@@ -0,0 +1,61 @@
+package com.feirasmart.benchmarks;
+
+import com.feirasmart.service.PrecificacaoService;
+import com.feirasmart.service.PrecoSnapshotService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo do total do pedido (PrecificacaoService.cotar) com o snapshot de preços já em memória
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrecificacaoBenchmark {
+    @Param({"1", "10", "50"})
+    private int itens;
+
+    private PrecificacaoService precificacaoService;
+    private List<PrecificacaoService.ItemSolicitado> solicitados;
+
+    @Setup
+    public void setup() {
+        Map<UUID, PrecoSnapshotService.PrecoSnapshot> snapshots = new HashMap<>();
+        solicitados = new ArrayList<>(itens);
+        UUID feiranteId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < itens; i++) {
+            UUID id = UUID.randomUUID();
+            BigDecimal preco = new BigDecimal("3.99").add(BigDecimal.valueOf(i));
+            snapshots.put(id, new PrecoSnapshotService.PrecoSnapshot(id, "Produto " + i, preco, 100, true,
+                    feiranteId, userId, 1));
+            solicitados.add(new PrecificacaoService.ItemSolicitado(id, 1 + i % 3, preco));
+        }
+
+        // Snapshot sempre em cache: mede só o cálculo, sem banco
+        PrecoSnapshotService precoSnapshotService = new PrecoSnapshotService() {
+            @Override
+            public Map<UUID, PrecoSnapshot> buscar(Collection<UUID> produtoIds) {
+                Map<UUID, PrecoSnapshot> resultado = new HashMap<>(produtoIds.size() * 2);
+                for (UUID id : produtoIds) {
+                    resultado.put(id, snapshots.get(id));
+                }
+                return resultado;
+            }
+        };
+        precificacaoService = new PrecificacaoService();
+        ReflectionTestUtils.setField(precificacaoService, "precoSnapshotService", precoSnapshotService);
+    }
+
+    @Benchmark
+    public PrecificacaoService.Cotacao cotar() {
+        return precificacaoService.cotar(solicitados);
+    }
+}
@@ -0,0 +1,71 @@
+package com.feirasmart.benchmarks;
+
+import com.feirasmart.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversões enum <-> coluna feitas pelo Hibernate em toda linha lida ou gravada
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusConverterBenchmark {
+    private final PedidoStatusConverter pedidoStatusConverter = new PedidoStatusConverter();
+    private final FeiraStatusConverter feiraStatusConverter = new FeiraStatusConverter();
+    private final UserTypeConverter userTypeConverter = new UserTypeConverter();
+
+    private final PedidoStatus[] pedidoStatus = PedidoStatus.values();
+    private final String[] pedidoStatusColuna = {"pendente", "confirmado", "pronto", "entregue", "cancelado"};
+    private final FeiraStatus[] feiraStatus = FeiraStatus.values();
+    private final String[] feiraStatusColuna = {"ativa", "encerrada", "agendada"};
+    private final UserType[] userTypes = UserType.values();
+    private final String[] userTypesColuna = {"cliente", "feirante"};
+
+    @Benchmark
+    public void pedidoStatusParaColuna(Blackhole bh) {
+        for (PedidoStatus status : pedidoStatus) {
+            bh.consume(pedidoStatusConverter.convertToDatabaseColumn(status));
+        }
+    }
+
+    @Benchmark
+    public void pedidoStatusDaColuna(Blackhole bh) {
+        for (String coluna : pedidoStatusColuna) {
+            bh.consume(pedidoStatusConverter.convertToEntityAttribute(coluna));
+        }
+    }
+
+    @Benchmark
+    public void feiraStatusParaColuna(Blackhole bh) {
+        for (FeiraStatus status : feiraStatus) {
+            bh.consume(feiraStatusConverter.convertToDatabaseColumn(status));
+        }
+    }
+
+    @Benchmark
+    public void feiraStatusDaColuna(Blackhole bh) {
+        for (String coluna : feiraStatusColuna) {
+            bh.consume(feiraStatusConverter.convertToEntityAttribute(coluna));
+        }
+    }
+
+    @Benchmark
+    public void userTypeParaColuna(Blackhole bh) {
+        for (UserType tipo : userTypes) {
+            bh.consume(userTypeConverter.convertToDatabaseColumn(tipo));
+        }
+    }
+
+    @Benchmark
+    public void userTypeDaColuna(Blackhole bh) {
+        for (String coluna : userTypesColuna) {
+            bh.consume(userTypeConverter.convertToEntityAttribute(coluna));
+        }
+    }
+}
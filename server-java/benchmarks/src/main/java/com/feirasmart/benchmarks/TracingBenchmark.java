@@ -0,0 +1,118 @@
+package com.feirasmart.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feirasmart.config.JacksonConfig;
+import com.feirasmart.config.JwtUtil;
+import com.feirasmart.model.Pedido;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Custo do tracing numa requisição de checkout só de CPU (validação do JWT e
+ * serialização do pedido), com os mesmos spans da API: requisição, JWT, três
+ * fases do pedido e dois comandos JDBC por fase.
+ *
+ * Modos: "desligado" (sem observações), "metricas" (management.tracing.enabled=false:
+ * só os timers) e a probabilidade de amostragem com o exportador OTLP JSON real.
+ * Sem o tempo do banco no denominador, a diferença percentual é um teto para a da API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingBenchmark {
+    private static final String[] FASES = {"validacao", "precificacao", "persistencia"};
+
+    @Param({"desligado", "metricas", "0.1", "1.0"})
+    private String modo;
+
+    private ObservationRegistry observationRegistry;
+    private SdkTracerProvider tracerProvider;
+    private JwtUtil jwtUtil;
+    private ObjectMapper objectMapper;
+    private Pedido pedido;
+    private String token;
+    // Referência forte: o nível de um Logger do JUL se perde se ele for coletado
+    private Logger loggerExportador;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmark-secret-com-pelo-menos-32-bytes!!");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 604800000L);
+        token = jwtUtil.generateToken(UUID.randomUUID(), "usuario@feirasmart.com", "CLIENTE");
+        objectMapper = new JacksonConfig().objectMapper(Jackson2ObjectMapperBuilder.json());
+        pedido = Dados.pedido(5);
+
+        if (modo.equals("desligado")) {
+            observationRegistry = ObservationRegistry.NOOP;
+            return;
+        }
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig()
+                .observationHandler(new DefaultMeterObservationHandler(new SimpleMeterRegistry()));
+        if (modo.equals("metricas")) {
+            return;
+        }
+
+        // O exportador serializa os spans em OTLP JSON; só a escrita no log é descartada
+        loggerExportador = Logger.getLogger(OtlpJsonLoggingSpanExporter.class.getName());
+        loggerExportador.setLevel(Level.OFF);
+        tracerProvider = SdkTracerProvider.builder()
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(Double.parseDouble(modo))))
+                .addSpanProcessor(BatchSpanProcessor.builder(OtlpJsonLoggingSpanExporter.create()).build())
+                .build();
+        OtelTracer tracer = new OtelTracer(tracerProvider.get("benchmark"), new OtelCurrentTraceContext(), evento -> {
+        });
+        observationRegistry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (tracerProvider != null) {
+            tracerProvider.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] checkout() throws Exception {
+        Observation requisicao = Observation.start("http.server.requests", observationRegistry)
+                .lowCardinalityKeyValue("uri", "/api/pedidos");
+        try (Observation.Scope ignored = requisicao.openScope()) {
+            Observation.createNotStarted("feirasmart.jwt.autenticacao", observationRegistry)
+                    .observe(() -> jwtUtil.validateToken(token));
+            for (String fase : FASES) {
+                Observation observacaoFase = Observation.start("feirasmart.pedido.criacao", observationRegistry)
+                        .lowCardinalityKeyValue("fase", fase);
+                try (Observation.Scope escopoFase = observacaoFase.openScope()) {
+                    Observation.start("jdbc.query", observationRegistry).stop();
+                    Observation.start("jdbc.query", observationRegistry).stop();
+                } finally {
+                    observacaoFase.stop();
+                }
+            }
+            return objectMapper.writeValueAsBytes(pedido);
+        } finally {
+            requisicao.stop();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.feirasmart.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * PostgreSQL embutido (binários do zonky) num diretório temporário, criado a
+ * partir de database/schema.sql e database/seed.sql, os mesmos arquivos usados
+ * para montar o banco de desenvolvimento.
+ */
+class BancoEmbutido implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+
+    private BancoEmbutido(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+    }
+
+    static BancoEmbutido iniciar(Path databaseDir) throws IOException, SQLException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                // Perto do que se usa em produção para um banco desse tamanho
+                .setServerConfig("shared_buffers", "256MB")
+                .setServerConfig("max_connections", "200")
+                .setServerConfig("fsync", "off")
+                .setServerConfig("synchronous_commit", "off")
+                .start();
+        BancoEmbutido banco = new BancoEmbutido(postgres);
+        banco.executarArquivo(databaseDir.resolve("schema.sql"));
+        banco.executarArquivo(databaseDir.resolve("seed.sql"));
+        return banco;
+    }
+
+    DataSource getDataSource() {
+        return postgres.getPostgresDatabase();
+    }
+
+    /**
+     * URL JDBC para a API. stringtype=unspecified deixa o Postgres converter os
+     * status gravados como texto pelos *Converter para as colunas ENUM do schema.
+     */
+    String getJdbcUrl() {
+        return postgres.getJdbcUrl("postgres", "postgres") + "&stringtype=unspecified";
+    }
+
+    // Arquivo inteiro num único comando: o driver aceita vários comandos (e blocos $$) no modo simples
+    private void executarArquivo(Path arquivo) throws IOException, SQLException {
+        String sql = Files.readString(arquivo);
+        try (Connection conexao = getDataSource().getConnection(); Statement statement = conexao.createStatement()) {
+            statement.execute(sql);
+        }
+        System.out.println("Executado: " + arquivo.getFileName());
+    }
+
+    @Override
+    public void close() throws IOException {
+        postgres.close();
+    }
+}
@@ -0,0 +1,123 @@
+package com.feirasmart.loadtest;
+
+import com.feirasmart.FeiraSmartApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Teste de carga de ponta a ponta: sobe um PostgreSQL embutido com schema,
+ * seed e dados sintéticos, inicia a API contra ele e roda cada cenário por
+ * um tempo fixo com clientes concorrentes, imprimindo vazão, p50/p99 e
+ * comandos SQL por requisição.
+ *
+ * Configuração por propriedades de sistema (-Dcarga.*); propriedades da API
+ * (ex.: -Dspring.threads.virtual.enabled=true) também são repassadas.
+ */
+public class CargaMain {
+    private interface Cenario {
+        void executar(ThreadLocalRandom random) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path databaseDir = Path.of(System.getProperty("carga.database-dir", "../../database")).toAbsolutePath().normalize();
+        GeradorSintetico.Escala escala = GeradorSintetico.Escala.dasPropriedades();
+        int clientes = Integer.getInteger("carga.clientes-http", 50);
+        int usuarios = Integer.getInteger("carga.usuarios-logados", 100);
+        Duration duracao = Duration.ofSeconds(Long.getLong("carga.segundos", 30));
+        Duration aquecimento = Duration.ofSeconds(Long.getLong("carga.aquecimento-segundos", 10));
+        List<String> selecionados = Arrays.asList(
+                System.getProperty("carga.cenarios", "catalogo,checkout,painel,status").split(","));
+
+        try (BancoEmbutido banco = BancoEmbutido.iniciar(databaseDir)) {
+            new GeradorSintetico(banco.getDataSource()).gerar(escala);
+
+            // Como argumentos de linha de comando, para valer sobre o application.properties
+            String[] propriedades = {
+                    "--spring.datasource.url=" + banco.getJdbcUrl(),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    "--server.port=0",
+                    "--management.server.port=0",
+                    "--vendas.rollup.backfill.habilitado=" + System.getProperty("carga.backfill-vendas", "true")
+            };
+
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FeiraSmartApplication.class, ContagemSql.class)
+                    .run(propriedades)) {
+                int porta = Integer.parseInt(app.getEnvironment().getRequiredProperty("local.server.port"));
+                ClienteApi api = new ClienteApi(porta);
+                Cenarios cenarios = new Cenarios(api, banco.getDataSource(), usuarios);
+
+                Map<String, Cenario> todos = new LinkedHashMap<>();
+                todos.put("catalogo", cenarios::navegarCatalogo);
+                todos.put("checkout", cenarios::checkout);
+                todos.put("painel", cenarios::painelFeirante);
+                todos.put("status", cenarios::atualizarStatus);
+
+                List<String> linhas = new ArrayList<>();
+                for (Map.Entry<String, Cenario> e : todos.entrySet()) {
+                    if (!selecionados.contains(e.getKey())) {
+                        continue;
+                    }
+                    System.out.println("Cenário " + e.getKey() + ": aquecimento de " + aquecimento.toSeconds() + "s");
+                    rodar(api, e.getValue(), clientes, aquecimento);
+                    System.out.println("Cenário " + e.getKey() + ": medindo por " + duracao.toSeconds() + "s");
+                    linhas.add(relatorio(e.getKey(), api, e.getValue(), clientes, duracao));
+                }
+
+                System.out.println();
+                System.out.printf("%-10s %10s %7s %10s %9s %9s %8s%n",
+                        "cenário", "requisições", "erros", "req/s", "p50 ms", "p99 ms", "SQL/req");
+                linhas.forEach(System.out::println);
+            }
+        }
+    }
+
+    private static String relatorio(String nome, ClienteApi api, Cenario cenario, int clientes, Duration duracao)
+            throws InterruptedException {
+        long comandosAntes = ContagemSql.COMANDOS.sum();
+        long inicio = System.nanoTime();
+        Registro registro = rodar(api, cenario, clientes, duracao);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        // Espera o processamento assíncrono disparado pelo cenário (agregados, rankings)
+        Thread.sleep(1000);
+        long comandos = ContagemSql.COMANDOS.sum() - comandosAntes;
+
+        long[] latencias = registro.ordenadas();
+        return String.format("%-10s %10d %7d %10.1f %9.1f %9.1f %8.1f",
+                nome, latencias.length, registro.getErros(), latencias.length / segundos,
+                percentil(latencias, 0.50), percentil(latencias, 0.99),
+                latencias.length == 0 ? 0.0 : (double) comandos / latencias.length);
+    }
+
+    // Loop fechado: cada cliente repete o cenário até o fim do tempo
+    private static Registro rodar(ClienteApi api, Cenario cenario, int clientes, Duration duracao) {
+        Registro registro = new Registro();
+        api.setRegistro(registro);
+        long fim = System.nanoTime() + duracao.toNanos();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientes; i++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < fim) {
+                        cenario.executar(random);
+                    }
+                    return null;
+                });
+            }
+        }
+        return registro;
+    }
+
+    private static double percentil(long[] ordenado, double p) {
+        if (ordenado.length == 0) {
+            return 0;
+        }
+        return ordenado[(int) Math.min(ordenado.length - 1, Math.ceil(p * ordenado.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,119 @@
+package com.feirasmart.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cenários de um dia de feira. Os ids usados (feiras, produtos, pedidos) são
+ * sorteados de amostras lidas do banco antes da carga, e os logins são feitos
+ * uma vez só, para o BCrypt não dominar a medição.
+ */
+class Cenarios {
+    private static final String[] STATUS = {"pendente", "confirmado", "pronto", "entregue", "cancelado"};
+
+    private final ClienteApi api;
+    private final List<UUID> feiras;
+    private final List<UUID> feirantes;
+    private final Map<UUID, List<Object[]>> produtosPorFeirante = new HashMap<>();
+    private final List<UUID> feirantesComProdutos;
+    private final List<String> tokensClientes = new ArrayList<>();
+    private final List<String> tokensFeirantes = new ArrayList<>();
+    private final List<List<UUID>> pedidosPorFeirante = new ArrayList<>();
+
+    Cenarios(ClienteApi api, DataSource dataSource, int usuarios) throws Exception {
+        this.api = api;
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        feiras = jdbc.queryForList("SELECT id FROM feiras ORDER BY random() LIMIT 500", UUID.class);
+        feirantes = jdbc.queryForList("SELECT id FROM feirantes WHERE descricao = 'Barraca sintética' " +
+                "ORDER BY random() LIMIT 500", UUID.class);
+        jdbc.query("SELECT feirante_id, id, preco FROM produtos WHERE disponivel AND feirante_id = ANY (?)",
+                rs -> {
+                    produtosPorFeirante.computeIfAbsent(rs.getObject("feirante_id", UUID.class), id -> new ArrayList<>())
+                            .add(new Object[]{rs.getObject("id", UUID.class), rs.getBigDecimal("preco")});
+                }, (Object) feirantes.toArray(new UUID[0]));
+        feirantesComProdutos = new ArrayList<>(produtosPorFeirante.keySet());
+
+        for (String email : jdbc.queryForList("SELECT email FROM profiles WHERE tipo = 'cliente' " +
+                "AND email LIKE 'cliente%" + GeradorSintetico.DOMINIO + "' ORDER BY random() LIMIT ?", String.class, usuarios)) {
+            tokensClientes.add(api.login(email, GeradorSintetico.SENHA));
+        }
+
+        // Feirantes com pedidos, cada um com uma amostra dos próprios pedidos para atualizar status
+        Map<String, List<UUID>> pedidos = new LinkedHashMap<>();
+        jdbc.query("SELECT email, pedido_id FROM (" +
+                "SELECT u.email, p.id AS pedido_id, ROW_NUMBER() OVER (PARTITION BY u.id ORDER BY p.created_at DESC) AS n " +
+                "FROM profiles u JOIN feirantes fe ON fe.user_id = u.id JOIN pedidos p ON p.feirante_id = fe.id " +
+                "WHERE u.id IN (SELECT id FROM profiles WHERE tipo = 'feirante' " +
+                "AND email LIKE 'feirante%" + GeradorSintetico.DOMINIO + "' ORDER BY random() LIMIT ?)) t WHERE n <= 50",
+                rs -> {
+                    pedidos.computeIfAbsent(rs.getString("email"), e -> new ArrayList<>())
+                            .add(rs.getObject("pedido_id", UUID.class));
+                }, usuarios);
+        for (Map.Entry<String, List<UUID>> e : pedidos.entrySet()) {
+            tokensFeirantes.add(api.login(e.getKey(), GeradorSintetico.SENHA));
+            pedidosPorFeirante.add(e.getValue());
+        }
+        System.out.printf("Amostras: %d feiras, %d feirantes com produtos, %d clientes e %d feirantes logados%n",
+                feiras.size(), produtosPorFeirante.size(), tokensClientes.size(), tokensFeirantes.size());
+    }
+
+    /**
+     * Cliente navegando: lista de feiras, página de uma feira e catálogo de um feirante
+     */
+    void navegarCatalogo(ThreadLocalRandom random) {
+        api.get("/api/feiras", null);
+        api.get("/api/feiras/" + sortear(feiras, random) + "/snapshot", null);
+        api.get("/api/produtos?disponivel=true&feirante_id=" + sortear(feirantes, random), null);
+    }
+
+    /**
+     * Checkout de um carrinho com 1 a 5 produtos de um mesmo feirante
+     */
+    void checkout(ThreadLocalRandom random) {
+        UUID feiranteId = sortear(feirantesComProdutos, random);
+        List<Object[]> produtos = produtosPorFeirante.get(feiranteId);
+        int quantidadeItens = 1 + random.nextInt(Math.min(5, produtos.size()));
+
+        Set<Integer> escolhidos = new LinkedHashSet<>();
+        while (escolhidos.size() < quantidadeItens) {
+            escolhidos.add(random.nextInt(produtos.size()));
+        }
+        List<Map<String, Object>> itens = new ArrayList<>();
+        for (int i : escolhidos) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("produto_id", produtos.get(i)[0]);
+            item.put("feirante_id", feiranteId);
+            item.put("quantidade", 1 + random.nextInt(3));
+            item.put("preco", produtos.get(i)[1]);
+            itens.add(item);
+        }
+        api.post("/api/checkout", sortear(tokensClientes, random), Map.of("itens", itens));
+    }
+
+    /**
+     * Painel do feirante sendo atualizado: estatísticas e lista de pedidos
+     */
+    void painelFeirante(ThreadLocalRandom random) {
+        String token = sortear(tokensFeirantes, random);
+        api.get("/api/feirantes/stats/dashboard", token);
+        api.get("/api/pedidos", token);
+    }
+
+    /**
+     * Feirante avançando o status de um dos próprios pedidos
+     */
+    void atualizarStatus(ThreadLocalRandom random) {
+        int feirante = random.nextInt(tokensFeirantes.size());
+        UUID pedidoId = sortear(pedidosPorFeirante.get(feirante), random);
+        api.patch("/api/pedidos/" + pedidoId + "/status", tokensFeirantes.get(feirante),
+                Map.of("status", STATUS[random.nextInt(STATUS.length)]));
+    }
+
+    private static <T> T sortear(List<T> lista, ThreadLocalRandom random) {
+        return lista.get(random.nextInt(lista.size()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.feirasmart.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Cliente HTTP da API. Cada requisição é medida no registro do cenário em
+ * andamento; respostas fora de 2xx/304 e falhas de conexão contam como erro.
+ */
+class ClienteApi {
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper json = new ObjectMapper();
+    private final String base;
+
+    private volatile Registro registro;
+
+    ClienteApi(int porta) {
+        this.base = "http://localhost:" + porta;
+    }
+
+    void setRegistro(Registro registro) {
+        this.registro = registro;
+    }
+
+    String login(String email, String senha) throws IOException, InterruptedException {
+        HttpResponse<byte[]> resposta = http.send(requisicao("/api/auth/login", null)
+                        .POST(corpo(Map.of("email", email, "password", senha))).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (resposta.statusCode() != 200) {
+            throw new IllegalStateException("Login falhou para " + email + ": " + resposta.statusCode());
+        }
+        return json.readTree(resposta.body()).get("token").asText();
+    }
+
+    void get(String caminho, String token) {
+        enviar(requisicao(caminho, token).header("Accept-Encoding", "gzip").GET().build());
+    }
+
+    void post(String caminho, String token, Object corpo) {
+        enviar(requisicao(caminho, token).POST(corpo(corpo)).build());
+    }
+
+    void patch(String caminho, String token, Object corpo) {
+        enviar(requisicao(caminho, token).method("PATCH", corpo(corpo)).build());
+    }
+
+    private void enviar(HttpRequest requisicao) {
+        long inicio = System.nanoTime();
+        boolean erro;
+        try {
+            int status = http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+            erro = status >= 300 && status != 304;
+        } catch (IOException e) {
+            erro = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        registro.registrar(System.nanoTime() - inicio, erro);
+    }
+
+    private HttpRequest.Builder requisicao(String caminho, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + caminho))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest.BodyPublisher corpo(Object corpo) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(corpo));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.feirasmart.loadtest;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conta os comandos SQL executados pela API. Registrado como fonte extra do
+ * contexto (sem @Component, para o component scan da API não achá-lo).
+ * Os cenários rodam um de cada vez, então a diferença do contador durante um
+ * cenário, dividida pelas requisições, dá os comandos por requisição
+ * (incluindo o trabalho assíncrono disparado por elas).
+ */
+public class ContagemSql implements BeanPostProcessor {
+    static final LongAdder COMANDOS = new LongAdder();
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new QueryExecutionListener() {
+                    @Override
+                    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                    }
+
+                    @Override
+                    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                        // Em lote, cada conjunto de parâmetros é uma execução
+                        COMANDOS.add(execInfo.isBatch() ? Math.max(1, execInfo.getBatchSize()) : queryInfoList.size());
+                    }
+                })
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package com.feirasmart.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+
+/**
+ * Gera o volume de um dia de pico em cima do seed: feiras, feirantes,
+ * produtos, clientes e pedidos com itens, tudo com generate_series no
+ * próprio banco. Usuários sintéticos usam e-mails @carga.local e a mesma
+ * senha (SENHA), para os cenários poderem fazer login.
+ */
+class GeradorSintetico {
+    static final String SENHA = "carga123";
+    static final String DOMINIO = "@carga.local";
+
+    private static final int LOTE_PEDIDOS = 100_000;
+
+    private final JdbcTemplate jdbc;
+
+    GeradorSintetico(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    void gerar(Escala escala) {
+        long inicio = System.nanoTime();
+        String hash = new BCryptPasswordEncoder().encode(SENHA);
+
+        jdbc.update("INSERT INTO feiras (nome, localizacao, descricao, dia_da_semana, hora_inicio, hora_fim) " +
+                "SELECT 'Feira ' || g, 'Rua ' || g || ', Centro', 'Feira sintética ' || g, g % 7, '06:00', '13:00' " +
+                "FROM generate_series(1, ?) g", escala.feiras());
+
+        jdbc.update("INSERT INTO profiles (email, nome, tipo, password_hash) " +
+                "SELECT 'feirante' || g || '" + DOMINIO + "', 'Feirante ' || g, 'feirante', ? " +
+                "FROM generate_series(1, ?) g", hash, escala.feirantes());
+
+        // Cada feirante sintético tem barraca em uma feira, distribuídos em rodízio
+        jdbc.update("WITH f AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM feiras WHERE descricao LIKE 'Feira sintética%'), " +
+                "u AS (SELECT id, row_number() OVER (ORDER BY id) AS n FROM profiles WHERE email LIKE 'feirante%" + DOMINIO + "') " +
+                "INSERT INTO feirantes (user_id, feira_id, nome_estande, descricao, categoria, avaliacao, num_avaliacoes, soma_avaliacoes) " +
+                "SELECT u.id, f.id, 'Barraca ' || u.n, 'Barraca sintética', " +
+                "(ARRAY['Hortifruti','Frutas','Laticínios','Padaria','Carnes'])[1 + u.n % 5], 4.0, 10, 40 " +
+                "FROM u JOIN f ON f.n = 1 + (u.n - 1) % ?", escala.feiras());
+
+        jdbc.update("INSERT INTO produtos (user_id, feirante_id, nome, descricao, preco, unidade, categoria, sku, estoque, disponivel) " +
+                "SELECT fe.user_id, fe.id, 'Produto ' || g, 'Produto sintético ' || g, " +
+                "ROUND((1 + random() * 30)::numeric, 2), 'kg', fe.categoria, 'SKU-' || g, 1000000, g % 10 <> 0 " +
+                "FROM feirantes fe CROSS JOIN generate_series(1, ?) g WHERE fe.descricao = 'Barraca sintética'",
+                escala.produtosPorFeirante());
+
+        jdbc.update("INSERT INTO profiles (email, nome, tipo, password_hash) " +
+                "SELECT 'cliente' || g || '" + DOMINIO + "', 'Cliente ' || g, 'cliente', ? " +
+                "FROM generate_series(1, ?) g", hash, escala.clientes());
+        System.out.printf("Cadastros gerados em %.1fs%n", (System.nanoTime() - inicio) / 1e9);
+
+        // Tabelas auxiliares numeradas para sortear cliente e feirante de cada pedido
+        jdbc.execute("CREATE UNLOGGED TABLE carga_clientes AS SELECT row_number() OVER () AS n, id FROM profiles " +
+                "WHERE email LIKE 'cliente%" + DOMINIO + "'");
+        jdbc.execute("CREATE UNLOGGED TABLE carga_feirantes AS SELECT row_number() OVER () AS n, id, feira_id FROM feirantes " +
+                "WHERE descricao = 'Barraca sintética'");
+
+        // Pedidos em lotes, cada um com 1 a 3 itens de produtos do próprio feirante, espalhados no último ano
+        for (long feitos = 0; feitos < escala.pedidos(); feitos += LOTE_PEDIDOS) {
+            long lote = Math.min(LOTE_PEDIDOS, escala.pedidos() - feitos);
+            jdbc.update("WITH novos AS (" +
+                    "INSERT INTO pedidos (cliente_id, feirante_id, feira_id, total, status, created_at) " +
+                    "SELECT c.id, fe.id, fe.feira_id, 0, " +
+                    "(ARRAY['pendente','confirmado','pronto','entregue','cancelado'])[1 + (g % 5)]::pedido_status, " +
+                    "now() - (random() * interval '365 days') " +
+                    "FROM generate_series(?, ?) g " +
+                    "JOIN carga_clientes c ON c.n = 1 + (g * 7919) % ? " +
+                    "JOIN carga_feirantes fe ON fe.n = 1 + (g * 104729) % ? " +
+                    "RETURNING id, feirante_id, created_at) " +
+                    "INSERT INTO pedido_itens (pedido_id, produto_id, nome_produto, quantidade, preco, created_at) " +
+                    "SELECT n.id, p.id, p.nome, 1 + (random() * 4)::int, p.preco, n.created_at FROM novos n " +
+                    "CROSS JOIN LATERAL (SELECT id, nome, preco FROM produtos WHERE feirante_id = n.feirante_id " +
+                    "ORDER BY id LIMIT 1 + (random() * 2)::int) p",
+                    feitos + 1, feitos + lote, escala.clientes(), escala.feirantes());
+            System.out.printf("Pedidos: %d/%d%n", feitos + lote, escala.pedidos());
+        }
+
+        jdbc.execute("DROP TABLE carga_clientes, carga_feirantes");
+        jdbc.update("UPDATE pedidos p SET total = t.total FROM (SELECT pedido_id, SUM(preco * quantidade) AS total " +
+                "FROM pedido_itens GROUP BY pedido_id) t WHERE t.pedido_id = p.id AND p.total = 0");
+        jdbc.execute("ANALYZE");
+        System.out.printf("Dados sintéticos gerados em %.1fs%n", (System.nanoTime() - inicio) / 1e9);
+    }
+
+    record Escala(int feiras, int feirantes, int produtosPorFeirante, int clientes, long pedidos) {
+        static Escala dasPropriedades() {
+            return new Escala(
+                    Integer.getInteger("carga.feiras", 1_000),
+                    Integer.getInteger("carga.feirantes", 5_000),
+                    Integer.getInteger("carga.produtos-por-feirante", 20),
+                    Integer.getInteger("carga.clientes", 20_000),
+                    Long.getLong("carga.pedidos", 1_000_000L));
+        }
+    }
+}
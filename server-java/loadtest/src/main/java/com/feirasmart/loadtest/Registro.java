@@ -0,0 +1,55 @@
+package com.feirasmart.loadtest;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latências das requisições de um cenário. Cada cliente (thread) grava no
+ * próprio buffer, sem disputa; os buffers são juntados só no relatório.
+ */
+class Registro {
+    private final Queue<Amostras> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Amostras> local = ThreadLocal.withInitial(() -> {
+        Amostras amostras = new Amostras();
+        buffers.add(amostras);
+        return amostras;
+    });
+    private final LongAdder erros = new LongAdder();
+
+    void registrar(long nanos, boolean erro) {
+        local.get().adicionar(nanos);
+        if (erro) {
+            erros.increment();
+        }
+    }
+
+    long getErros() {
+        return erros.sum();
+    }
+
+    long[] ordenadas() {
+        int total = buffers.stream().mapToInt(a -> a.tamanho).sum();
+        long[] todas = new long[total];
+        int pos = 0;
+        for (Amostras a : buffers) {
+            System.arraycopy(a.valores, 0, todas, pos, a.tamanho);
+            pos += a.tamanho;
+        }
+        Arrays.sort(todas);
+        return todas;
+    }
+
+    private static class Amostras {
+        private long[] valores = new long[1024];
+        private int tamanho;
+
+        void adicionar(long valor) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = valor;
+        }
+    }
+}
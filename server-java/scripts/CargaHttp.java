@@ -0,0 +1,93 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de carga simples (Java 21, executado direto do fonte):
+ *
+ *   java scripts/CargaHttp.java <url> <clientes> <segundos> [token]
+ *
+ * Cada cliente repete GETs na URL em loop fechado; no fim imprime vazão,
+ * p50/p99 e quantas respostas não foram 2xx/304 (ex.: 503 do limitador).
+ */
+public class CargaHttp {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("uso: java CargaHttp.java <url> <clientes> <segundos> [token]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        int clientes = Integer.parseInt(args[1]);
+        long fim = System.nanoTime() + Duration.ofSeconds(Long.parseLong(args[2])).toNanos();
+        String token = args.length > 3 ? args[3] : null;
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        AtomicLong erros = new AtomicLong();
+        List<long[]> amostras = new ArrayList<>();
+        long inicio = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clientes; i++) {
+                long[] latencias = new long[1 << 20];
+                int[] total = new int[1];
+                amostras.add(latencias);
+                executor.submit(() -> {
+                    while (System.nanoTime() < fim) {
+                        long t0 = System.nanoTime();
+                        try {
+                            int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status >= 300 && status != 304) {
+                                erros.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            erros.incrementAndGet();
+                        }
+                        if (total[0] < latencias.length - 1) {
+                            latencias[++total[0]] = System.nanoTime() - t0;
+                        }
+                    }
+                    latencias[0] = total[0];
+                    return null;
+                });
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        int n = 0;
+        for (long[] a : amostras) {
+            n += (int) a[0];
+        }
+        long[] todas = new long[n];
+        int pos = 0;
+        for (long[] a : amostras) {
+            System.arraycopy(a, 1, todas, pos, (int) a[0]);
+            pos += (int) a[0];
+        }
+        Arrays.sort(todas);
+
+        System.out.printf("requisicoes=%d erros=%d vazao=%.1f/s p50=%.1fms p99=%.1fms%n",
+                n, erros.get(), n / segundos, percentil(todas, 0.50), percentil(todas, 0.99));
+    }
+
+    private static double percentil(long[] ordenado, double p) {
+        if (ordenado.length == 0) {
+            return 0;
+        }
+        return ordenado[(int) Math.min(ordenado.length - 1, Math.ceil(p * ordenado.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,33 @@
+#!/usr/bin/env sh
+# Compara vazão e p99 da API com o pool de threads do Tomcat e com threads
+# virtuais, com latência artificial no banco (benchmark.db.latencia-ms).
+# Requer Java 21 e o banco configurado (DB_HOST, DB_NAME, ...). Roda sempre
+# sem Spring AOT, mesmo com um jar do perfil aot: com AOT, VIRTUAL_THREADS
+# não teria efeito (os beans de threads ficam fixados no build).
+#
+#   LATENCIA_MS=20 CLIENTES=400 SEGUNDOS=30 ./scripts/comparar-threads.sh
+set -e
+cd "$(dirname "$0")/.."
+
+LATENCIA_MS=${LATENCIA_MS:-20}
+CLIENTES=${CLIENTES:-400}
+SEGUNDOS=${SEGUNDOS:-30}
+URL=${URL:-http://localhost:3001/api/feiras}
+JAR=target/feira-smart-api-1.0.0-exec.jar
+
+[ -f "$JAR" ] || mvn -B -q -DskipTests package
+
+for VIRTUAL in false true; do
+  VIRTUAL_THREADS=$VIRTUAL BENCH_DB_LATENCIA_MS=$LATENCIA_MS java -Dspring.aot.enabled=false -jar "$JAR" > "target/bench-virtual-$VIRTUAL.log" 2>&1 &
+  PID=$!
+  trap 'kill $PID 2>/dev/null' EXIT
+  until curl -sf http://localhost:3001/health > /dev/null; do sleep 1; done
+
+  # Aquecimento (JIT, pools) antes da medição
+  java scripts/CargaHttp.java "$URL" "$CLIENTES" 10 > /dev/null
+  printf 'virtual=%s latencia=%sms clientes=%s: ' "$VIRTUAL" "$LATENCIA_MS" "$CLIENTES"
+  java scripts/CargaHttp.java "$URL" "$CLIENTES" "$SEGUNDOS"
+
+  kill $PID
+  wait $PID 2>/dev/null || true
+done
@@ -0,0 +1,57 @@
+#!/usr/bin/env sh
+# Mede o tempo até a prontidão (/readyz com 200) e o RSS
+# do processo nesse momento em três modos: jar executável comum, Spring AOT
+# e Spring AOT + AppCDS (o mesmo arranjo da imagem Docker).
+# Requer Java 21, curl e o banco configurado (DB_HOST, DB_NAME, ...). O
+# aquecimento fica desligado por padrão para medir só a inicialização.
+#
+#   REPETICOES=5 ./scripts/medir-inicializacao.sh
+set -e
+cd "$(dirname "$0")/.."
+
+REPETICOES=${REPETICOES:-3}
+PORTA=${PORTA:-3001}
+export AQUECIMENTO=${AQUECIMENTO:-false}
+JAR=target/feira-smart-api-1.0.0-exec.jar
+CDS=target/cds
+LOG=$(pwd)/target/inicializacao.log
+
+mvn -B -q -Paot -DskipTests package
+./scripts/preparar-cds.sh "$JAR" "$CDS"
+# Treino: sobe o contexto até o refresh (sem servidor web nem banco) e grava as classes carregadas ao sair
+(cd "$CDS" && java -XX:ArchiveClassesAtExit=app.jsa -Xlog:cds=off -Xlog:cds+dynamic=off \
+    -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -Dspring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=false \
+    -cp "$(cat classpath)" com.feirasmart.FeiraSmartApplication > treino.log 2>&1)
+
+medir() {
+  MODO=$1
+  shift
+  i=1
+  while [ $i -le "$REPETICOES" ]; do
+    INICIO=$(date +%s%3N)
+    "$@" > "$LOG" 2>&1 &
+    PID=$!
+    trap 'kill $PID 2>/dev/null' EXIT
+    until curl -sf "http://localhost:$PORTA/readyz" > /dev/null; do
+      if ! kill -0 $PID 2>/dev/null; then
+        echo "$MODO: a API não subiu (veja $LOG)"
+        exit 1
+      fi
+      sleep 0.1
+    done
+    FIM=$(date +%s%3N)
+    RSS=$(ps -o rss= -p $PID)
+    printf '%-8s %3d %8d ms %6d MB\n' "$MODO" $i $((FIM - INICIO)) $((RSS / 1024))
+
+    kill $PID
+    wait $PID 2>/dev/null || true
+    i=$((i + 1))
+  done
+}
+
+printf '%-8s %3s %11s %9s\n' modo "#" prontidao RSS
+medir jar java -Dserver.port="$PORTA" -jar "$JAR"
+medir aot java -Dserver.port="$PORTA" -Dspring.aot.enabled=true -jar "$JAR"
+medir aot-cds sh -c "cd $CDS && exec java -XX:SharedArchiveFile=app.jsa -Xlog:cds=off -Xlog:cds+dynamic=off \
+    -Dserver.port=$PORTA -Dspring.aot.enabled=true -cp \"\$(cat classpath)\" com.feirasmart.FeiraSmartApplication"
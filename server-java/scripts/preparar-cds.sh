@@ -0,0 +1,25 @@
+#!/usr/bin/env sh
+# Desempacota o jar executável num classpath de jars comuns (o CDS não
+# arquiva classes carregadas pelo class loader do Spring Boot nem de
+# diretórios) e grava em DESTINO/classpath a linha para o -cp, na ordem do
+# classpath.idx. Requer o JDK (ferramenta jar).
+#
+#   ./scripts/preparar-cds.sh target/feira-smart-api-1.0.0-exec.jar target/cds
+#   cd target/cds && java -XX:SharedArchiveFile=app.jsa -cp "$(cat classpath)" com.feirasmart.FeiraSmartApplication
+set -e
+
+JAR=$(cd "$(dirname "$1")" && pwd)/$(basename "$1")
+DESTINO=$2
+
+rm -rf "$DESTINO"
+mkdir -p "$DESTINO/extraido"
+cd "$DESTINO"
+(cd extraido && jar xf "$JAR")
+
+mv extraido/BOOT-INF/lib lib
+jar cf feira-smart-api.jar -C extraido/BOOT-INF/classes .
+{
+  printf 'feira-smart-api.jar'
+  sed -n 's#^- "BOOT-INF/\(lib/.*\)"$#:\1#p' extraido/BOOT-INF/classpath.idx | tr -d '\n'
+} > classpath
+rm -rf extraido
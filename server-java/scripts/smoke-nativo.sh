@@ -0,0 +1,68 @@
+#!/usr/bin/env sh
+# Smoke test do executável nativo (mvn -Pnative verify): sobe o binário,
+# espera a prontidão e confere os endpoints principais (feiras, snapshot,
+# catálogo, cadastro/login/JWT, métricas). Imprime o tempo até a prontidão e
+# o RSS. Requer curl e o banco configurado (DB_HOST, DB_NAME, ...).
+#
+#   ./scripts/smoke-nativo.sh target/feira-smart-api
+set -e
+
+BINARIO=$1
+PORTA=${PORTA:-3001}
+URL=http://localhost:$PORTA
+# Actuator na porta de gerenciamento (management.server.port)
+URL_GERENCIAMENTO=http://localhost:${PORTA_GERENCIAMENTO:-9091}
+LOG=${LOG:-$(dirname "$BINARIO")/smoke-nativo.log}
+
+INICIO=$(date +%s%3N)
+"$BINARIO" -Dserver.port="$PORTA" -Dmanagement.server.port="${PORTA_GERENCIAMENTO:-9091}" > "$LOG" 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null' EXIT
+
+TENTATIVAS=600
+until curl -sf "$URL/readyz" > /dev/null; do
+  TENTATIVAS=$((TENTATIVAS - 1))
+  if [ $TENTATIVAS -eq 0 ] || ! kill -0 $PID 2>/dev/null; then
+    echo "A API nativa não ficou pronta (veja $LOG)"
+    exit 1
+  fi
+  sleep 0.1
+done
+echo "Pronta em $(($(date +%s%3N) - INICIO)) ms, RSS $(($(ps -o rss= -p $PID) / 1024)) MB"
+
+FALHAS=0
+conferir() {
+  ESPERADO=$1
+  shift
+  STATUS=$(curl -s -o /dev/null -w '%{http_code}' "$@")
+  if [ "$STATUS" = "$ESPERADO" ]; then
+    echo "ok    $STATUS $*"
+  else
+    echo "FALHA $STATUS (esperado $ESPERADO) $*"
+    FALHAS=$((FALHAS + 1))
+  fi
+}
+
+conferir 200 "$URL/health"
+conferir 200 "$URL/api/feiras"
+FEIRA=$(curl -s "$URL/api/feiras" | sed -n 's/^\[{"id":"\([^"]*\)".*/\1/p')
+if [ -n "$FEIRA" ]; then
+  conferir 200 "$URL/api/feiras/$FEIRA/snapshot"
+  conferir 200 "$URL/api/feiras/$FEIRA/top-produtos"
+fi
+conferir 200 "$URL/api/produtos?disponivel=true"
+
+EMAIL="smoke-$(date +%s)@feirasmart.local"
+CADASTRO=$(curl -s -H 'Content-Type: application/json' \
+  -d "{\"email\":\"$EMAIL\",\"password\":\"smoke123\",\"nome\":\"Smoke\"}" "$URL/api/auth/register")
+TOKEN=$(echo "$CADASTRO" | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+if [ -z "$TOKEN" ]; then
+  echo "FALHA cadastro: $CADASTRO"
+  FALHAS=$((FALHAS + 1))
+fi
+conferir 200 -H 'Content-Type: application/json' -d "{\"email\":\"$EMAIL\",\"password\":\"smoke123\"}" "$URL/api/auth/login"
+conferir 200 -H "Authorization: Bearer $TOKEN" "$URL/api/auth/me"
+conferir 200 "$URL_GERENCIAMENTO/actuator/prometheus"
+conferir 403 "$URL/actuator/prometheus"
+
+[ $FALHAS -eq 0 ] || { echo "$FALHAS verificações falharam (veja $LOG)"; exit 1; }
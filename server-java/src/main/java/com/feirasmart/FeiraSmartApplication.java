@@ -1,9 +1,12 @@
 package com.feirasmart;
 
+import com.feirasmart.config.ImagemNativaRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(ImagemNativaRuntimeHints.class)
 public class FeiraSmartApplication {
     public static void main(String[] args) {
         SpringApplication.run(FeiraSmartApplication.class, args);
@@ -0,0 +1,38 @@
+package com.feirasmart.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Amostragem de logs de caminhos quentes. Eventos com o marcador AMOSTRADO
+ * abaixo de WARN só passam com probabilidade "taxa"; os descartados são
+ * barrados antes de qualquer formatação ou alocação do evento.
+ * Configurado em logback-spring.xml (logging.amostragem.taxa).
+ */
+public class AmostragemTurboFilter extends TurboFilter {
+    public static final Marker AMOSTRADO = MarkerFactory.getMarker("AMOSTRADO");
+
+    private double taxa = 1.0;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || level == null || level.isGreaterOrEqual(Level.WARN) || !marker.contains(AMOSTRADO)) {
+            return FilterReply.NEUTRAL;
+        }
+        if (taxa >= 1.0) {
+            return FilterReply.NEUTRAL;
+        }
+        // Ainda sujeito ao nível do logger depois daqui
+        return ThreadLocalRandom.current().nextDouble() < taxa ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setTaxa(double taxa) {
+        this.taxa = Math.max(0.0, Math.min(1.0, taxa));
+    }
+}
@@ -0,0 +1,52 @@
+package com.feirasmart.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Executor dos listeners de eventos de pedido (agregados de vendas etc.).
+     * Fila limitada; se encher, o evento é processado na própria thread que o
+     * publicou, em vez de ser descartado.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor eventosExecutor(
+            @Value("${eventos.executor.threads:2}") int threads,
+            @Value("${eventos.executor.fila:10000}") int fila) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("eventos-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(fila);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Geração das variantes redimensionadas das imagens enviadas. Fila limitada
+     * e sem CallerRuns: se encher, a tarefa é recusada e a imagem continua
+     * servida no original até um novo pedido de variante reagendá-la.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imagensExecutor(
+            @Value("${imagens.executor.threads:2}") int threads,
+            @Value("${imagens.executor.fila:200}") int fila) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("imagens-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(fila);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+}
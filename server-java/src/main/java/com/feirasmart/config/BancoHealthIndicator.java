@@ -0,0 +1,76 @@
+package com.feirasmart.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conectividade com o Postgres (nome "banco", substitui o indicador "db").
+ * O resultado fica em cache por cache-ms: sondas do balanceador, do
+ * Kubernetes e do /health em paralelo disparam no máximo uma verificação por
+ * vez, e quem chega durante ela recebe o último resultado.
+ */
+@Component("banco")
+public class BancoHealthIndicator extends AbstractHealthIndicator {
+    private final DataSource dataSource;
+    private final long cacheMs;
+    private final int timeoutSegundos;
+    private final ReentrantLock verificando = new ReentrantLock();
+
+    private volatile Health ultimo;
+    private volatile long verificadoEm;
+
+    public BancoHealthIndicator(
+            DataSource dataSource,
+            @Value("${saude.banco.cache-ms:5000}") long cacheMs,
+            @Value("${saude.banco.timeout-segundos:2}") int timeoutSegundos) {
+        super("Falha ao verificar o banco");
+        this.dataSource = dataSource;
+        this.cacheMs = cacheMs;
+        this.timeoutSegundos = timeoutSegundos;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        Health atual = ultimo;
+        boolean vencido = atual == null || System.currentTimeMillis() - verificadoEm > cacheMs;
+        if (vencido && verificando.tryLock()) {
+            try {
+                atual = verificar();
+                ultimo = atual;
+                verificadoEm = System.currentTimeMillis();
+            } finally {
+                verificando.unlock();
+            }
+        }
+        if (atual == null) {
+            // Primeira verificação ainda em andamento em outra thread
+            builder.unknown();
+            return;
+        }
+        builder.status(atual.getStatus()).withDetails(atual.getDetails());
+    }
+
+    private Health verificar() {
+        long inicio = System.nanoTime();
+        try (Connection conexao = dataSource.getConnection()) {
+            boolean valida = conexao.isValid(timeoutSegundos);
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+            return (valida ? Health.up() : Health.down())
+                    .withDetail("latenciaMs", ms)
+                    .withDetail("verificadoEm", Instant.now().toString())
+                    .build();
+        } catch (Exception e) {
+            return Health.down()
+                    .withDetail("erro", e.getClass().getSimpleName() + ": " + e.getMessage())
+                    .withDetail("verificadoEm", Instant.now().toString())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.feirasmart.config;
+
+import com.feirasmart.service.FileStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Espaço livre no disco do diretório de uploads (nome "discoUpload"; substitui
+ * o "diskSpace", que olha o diretório de trabalho). Abaixo de espaco-minimo
+ * a instância fica fora da prontidão, antes que os uploads comecem a falhar.
+ */
+@Component("discoUpload")
+public class DiscoUploadHealthIndicator extends AbstractHealthIndicator {
+    private final FileStorageService fileStorageService;
+    private final DataSize espacoMinimo;
+
+    public DiscoUploadHealthIndicator(
+            FileStorageService fileStorageService,
+            @Value("${saude.upload.espaco-minimo:500MB}") DataSize espacoMinimo) {
+        super("Falha ao verificar o disco de uploads");
+        this.fileStorageService = fileStorageService;
+        this.espacoMinimo = espacoMinimo;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) throws Exception {
+        Path diretorio = fileStorageService.resolveUploadPath();
+        // O diretório é criado no primeiro upload: mede o ancestral mais próximo que já existe
+        Path existente = diretorio;
+        while (existente != null && !Files.exists(existente)) {
+            existente = existente.getParent();
+        }
+        if (existente == null) {
+            builder.down().withDetail("diretorio", diretorio.toString());
+            return;
+        }
+        long livre = Files.getFileStore(existente).getUsableSpace();
+        (livre >= espacoMinimo.toBytes() ? builder.up() : builder.down())
+                .withDetail("diretorio", diretorio.toString())
+                .withDetail("livreBytes", livre)
+                .withDetail("minimoBytes", espacoMinimo.toBytes());
+    }
+}
@@ -0,0 +1,42 @@
+package com.feirasmart.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Backlog do eventosExecutor (agregados de vendas, rankings), nome "filaEventos".
+ * Acima de limite-ocupacao da fila a instância sai da prontidão: com a fila
+ * cheia os eventos passam a rodar na thread da requisição (CallerRunsPolicy).
+ */
+@Component("filaEventos")
+public class FilaEventosHealthIndicator extends AbstractHealthIndicator {
+    private final ThreadPoolTaskExecutor eventosExecutor;
+    private final double limiteOcupacao;
+
+    public FilaEventosHealthIndicator(
+            @Qualifier("eventosExecutor") ThreadPoolTaskExecutor eventosExecutor,
+            @Value("${saude.eventos.limite-ocupacao:0.8}") double limiteOcupacao) {
+        super("Falha ao ler a fila de eventos");
+        this.eventosExecutor = eventosExecutor;
+        this.limiteOcupacao = limiteOcupacao;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        ThreadPoolExecutor executor = eventosExecutor.getThreadPoolExecutor();
+        int pendentes = executor.getQueue().size();
+        int capacidade = pendentes + executor.getQueue().remainingCapacity();
+        double ocupacao = capacidade > 0 ? (double) pendentes / capacidade : 0.0;
+        builder.status(ocupacao > limiteOcupacao ? Status.OUT_OF_SERVICE : Status.UP)
+                .withDetail("pendentes", pendentes)
+                .withDetail("capacidade", capacidade)
+                .withDetail("emExecucao", executor.getActiveCount());
+    }
+}
@@ -1,5 +1,8 @@
 package com.feirasmart.config;
 
+import com.feirasmart.service.PrecificacaoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -7,12 +10,14 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -29,23 +34,38 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Map<String, String>> handleHttpMessageNotReadable(HttpMessageNotReadableException ex) {
-        System.out.println("❌ HttpMessageNotReadableException: " + ex.getMessage());
-        ex.printStackTrace();
+        log.info(AmostragemTurboFilter.AMOSTRADO, "Corpo de requisição inválido: {}", ex.getMessage());
         Map<String, String> response = new HashMap<>();
         response.put("error", "Dados de requisição inválidos ou mal formatados");
         response.put("message", ex.getMessage() != null ? ex.getMessage() : "JSON inválido ou campos não correspondem");
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    @ExceptionHandler(PrecificacaoService.PrecoDivergenteException.class)
+    public ResponseEntity<Map<String, Object>> handlePrecoDivergente(PrecificacaoService.PrecoDivergenteException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        response.put("divergencias", ex.getDivergencias());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    // Sem o resource handler de /uploads, caminhos desconhecidos caem aqui: 404, não erro do servidor
+    @ExceptionHandler(NoResourceFoundException.class)
+    public ResponseEntity<Map<String, String>> handleNoResourceFound(NoResourceFoundException ex) {
+        log.debug(AmostragemTurboFilter.AMOSTRADO, "Recurso não encontrado: {}", ex.getResourcePath());
+        Map<String, String> response = new HashMap<>();
+        response.put("error", "Recurso não encontrado");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntimeException(RuntimeException ex) {
-        System.out.println("❌ RuntimeException capturada no GlobalExceptionHandler: " + ex.getMessage());
-        System.out.println("   Classe da exceção: " + ex.getClass().getName());
-        ex.printStackTrace();
+        // Erros de regra de negócio (400) são frequentes: uma linha amostrada, pilha só em DEBUG
+        log.info(AmostragemTurboFilter.AMOSTRADO, "Requisição rejeitada ({}): {}", ex.getClass().getSimpleName(), ex.getMessage());
+        log.debug("Pilha da requisição rejeitada", ex);
         Map<String, String> response = new HashMap<>();
         String errorMessage = ex.getMessage() != null ? ex.getMessage() : "Erro na requisição";
         response.put("error", errorMessage);
-        System.out.println("   Retornando resposta JSON: " + response);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .header("Content-Type", "application/json")
                 .body(response);
@@ -53,7 +73,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
-        ex.printStackTrace();
+        log.error("Erro não tratado", ex);
         Map<String, String> response = new HashMap<>();
         response.put("error", ex.getMessage() != null ? ex.getMessage() : "Erro interno do servidor");
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
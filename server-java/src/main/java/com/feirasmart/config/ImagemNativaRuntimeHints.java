@@ -0,0 +1,111 @@
+package com.feirasmart.config;
+
+import com.feirasmart.model.FeiraStatusConverter;
+import com.feirasmart.model.PedidoStatusConverter;
+import com.feirasmart.model.UserTypeConverter;
+import com.feirasmart.service.AvaliacaoService;
+import com.feirasmart.service.CheckoutService;
+import com.feirasmart.service.PedidoService;
+import com.feirasmart.service.PrecificacaoService;
+import com.feirasmart.service.ProdutoImportService;
+import com.feirasmart.service.ProdutoService;
+import com.feirasmart.service.RankingVendasService;
+import com.feirasmart.service.VendasRollupService;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Metadados para a imagem nativa (perfil native) do que o Spring AOT não
+ * descobre sozinho. Só roda no processamento AOT do build, nunca na execução.
+ */
+public class ImagemNativaRuntimeHints implements RuntimeHintsRegistrar {
+
+    // Implementações do jjwt instanciadas por nome a partir do jjwt-api (Jwts, Keys, CompressionCodecs)
+    private static final List<String> JJWT = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.crypto.MacProvider",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    // Classes instanciadas pelo logback-spring.xml (construtor e setters das propriedades)
+    private static final List<String> LOGBACK = List.of(
+            "ch.qos.logback.classic.AsyncAppender",
+            "ch.qos.logback.core.FileAppender",
+            "net.logstash.logback.encoder.LogstashEncoder",
+            "net.logstash.logback.stacktrace.ShortenedThrowableConverter",
+            "com.feirasmart.config.AmostragemTurboFilter");
+
+    // Serializados pelo Jackson dentro de Map, em cache (CorpoJson) ou fora dos tipos de retorno dos controllers
+    private static final List<Class<?>> JSON = List.of(
+            PrecificacaoService.Divergencia.class,
+            AvaliacaoService.FeiranteAvaliado.class,
+            RankingVendasService.ItemRanking.class,
+            ProdutoImportService.RelatorioImportacao.class,
+            VendasRollupService.PontoVendas.class,
+            ProdutoService.AtualizacaoParcial.class,
+            PedidoService.ItemPedidoDTO.class,
+            CheckoutService.ItemCheckoutDTO.class);
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String tipo : JJWT) {
+            hints.reflection().registerTypeIfPresent(classLoader, tipo,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        for (String tipo : LOGBACK) {
+            hints.reflection().registerTypeIfPresent(classLoader, tipo,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // Conversores de enum do Postgres, instanciados pelo Hibernate
+        for (Class<?> conversor : List.of(FeiraStatusConverter.class, PedidoStatusConverter.class, UserTypeConverter.class)) {
+            hints.reflection().registerType(conversor,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // Proxies JDK do datasource-proxy (MedicaoSqlPostProcessor, LatenciaBancoPostProcessor, spans JDBC)
+        for (Class<?> jdbc : List.of(DataSource.class, Connection.class, Statement.class,
+                PreparedStatement.class, CallableStatement.class, ResultSet.class)) {
+            hints.proxies().registerJdkProxy(ProxyJdbcObject.class, jdbc);
+        }
+
+        BindingReflectionHintsRegistrar jackson = new BindingReflectionHintsRegistrar();
+        jackson.registerReflectionHints(hints.reflection(), JSON.toArray(new Class<?>[0]));
+        jackson.registerReflectionHints(hints.reflection(), tiposDosPacotes(classLoader, "com.feirasmart.model", "com.feirasmart.dto"));
+    }
+
+    // Entidades, enums e DTOs: varridos no build, para não depender de uma lista mantida à mão
+    private static Class<?>[] tiposDosPacotes(ClassLoader classLoader, String... pacotes) {
+        ClassPathScanningCandidateComponentProvider varredura = new ClassPathScanningCandidateComponentProvider(false);
+        varredura.addIncludeFilter((leitor, fabrica) -> true);
+        return Arrays.stream(pacotes)
+                .flatMap(pacote -> varredura.findCandidateComponents(pacote).stream())
+                .map(BeanDefinition::getBeanClassName)
+                .map(nome -> ClassUtils.resolveClassName(nome, classLoader))
+                .toArray(Class<?>[]::new);
+    }
+}
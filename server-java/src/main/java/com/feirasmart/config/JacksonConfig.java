@@ -22,6 +22,8 @@ public class JacksonConfig {
         Hibernate6Module hibernateModule = new Hibernate6Module();
         hibernateModule.configure(Hibernate6Module.Feature.FORCE_LAZY_LOADING, false);
         hibernateModule.configure(Hibernate6Module.Feature.USE_TRANSIENT_ANNOTATION, false);
+        // Referências não carregadas (ex.: produto dos itens de um pedido recém-criado) saem como {"id": ...}
+        hibernateModule.configure(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS, true);
         objectMapper.registerModule(hibernateModule);
         
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
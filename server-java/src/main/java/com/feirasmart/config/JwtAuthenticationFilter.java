@@ -1,5 +1,9 @@
 package com.feirasmart.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,50 +17,92 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final Timer validacaoValida;
+    private final Timer validacaoInvalida;
+    private final ObservationRegistry observationRegistry;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService, MeterRegistry meterRegistry,
+                                   ObservationRegistry observationRegistry) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.observationRegistry = observationRegistry;
+        this.validacaoValida = timerValidacao(meterRegistry, "valido");
+        this.validacaoInvalida = timerValidacao(meterRegistry, "invalido");
+    }
+
+    // Só o parse e a verificação do token (somados); a busca do usuário no banco fica de fora
+    private static Timer timerValidacao(MeterRegistry meterRegistry, String resultado) {
+        return Timer.builder("feirasmart.jwt.validacao")
+                .description("Tempo de parse e validação do token JWT")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            chain.doFilter(request, response);
+            return;
+        }
 
+        // Span da autenticação (token + busca do usuário), filho do span da requisição HTTP
+        Observation observation = Observation.createNotStarted("feirasmart.jwt.autenticacao", observationRegistry)
+                .contextualName("jwt autenticacao")
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            boolean autenticado = autenticar(request, authorizationHeader.substring(7));
+            observation.lowCardinalityKeyValue("resultado", autenticado ? "valido" : "invalido");
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private boolean autenticar(HttpServletRequest request, String jwt) {
         String username = null;
-        String jwt = null;
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = jwtUtil.getEmailFromToken(jwt);
-            } catch (Exception e) {
-                logger.debug("Token JWT inválido ou ausente para " + request.getRequestURI() + ": " + e.getMessage());
-            }
+        long inicio = System.nanoTime();
+        try {
+            username = jwtUtil.getEmailFromToken(jwt);
+        } catch (Exception e) {
+            logger.debug("Token JWT inválido ou ausente para " + request.getRequestURI() + ": " + e.getMessage());
         }
+        long nanosJwt = System.nanoTime() - inicio;
 
+        boolean autenticado = false;
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-                if (jwtUtil.validateToken(jwt)) {
+                inicio = System.nanoTime();
+                boolean valido = jwtUtil.validateToken(jwt);
+                nanosJwt += System.nanoTime() - inicio;
+                if (valido) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    autenticado = true;
                 }
             } catch (Exception e) {
                 logger.debug("Erro ao carregar usuário durante autenticação JWT: " + e.getMessage());
             }
         }
-        
-        chain.doFilter(request, response);
+
+        (autenticado ? validacaoValida : validacaoInvalida).record(nanosJwt, TimeUnit.NANOSECONDS);
+        return autenticado;
     }
 }
 
@@ -0,0 +1,57 @@
+package com.feirasmart.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Só para benchmarks: acrescenta uma latência fixa a cada comando SQL,
+ * simulando um Postgres lento. A conexão fica presa durante a espera, como
+ * aconteceria com o banco de verdade. Desligado com benchmark.db.latencia-ms=0,
+ * lido na execução (sem condição de bean, que o Spring AOT fixaria no build).
+ */
+@Component
+public class LatenciaBancoPostProcessor implements BeanPostProcessor {
+    private static final Logger log = LoggerFactory.getLogger(LatenciaBancoPostProcessor.class);
+
+    private final long latenciaMs;
+
+    public LatenciaBancoPostProcessor(Environment environment) {
+        this.latenciaMs = environment.getProperty("benchmark.db.latencia-ms", Long.class, 0L);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (latenciaMs <= 0 || !(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        log.warn("Latência artificial de {} ms por comando SQL (benchmark.db.latencia-ms)", latenciaMs);
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new QueryExecutionListener() {
+                    @Override
+                    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                        try {
+                            Thread.sleep(latenciaMs);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                    }
+                })
+                .build();
+    }
+}
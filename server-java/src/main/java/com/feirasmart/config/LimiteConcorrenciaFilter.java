@@ -0,0 +1,93 @@
+package com.feirasmart.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita as requisições /api em andamento de acordo com o pool do HikariCP.
+ * Com threads virtuais o Tomcat deixa de ter um teto de threads, e um pico
+ * de requisições viraria uma fila de espera por conexão dentro do Hikari (que
+ * falha com timeout e segura memória de cada requisição). Aqui a espera é
+ * curta e explícita: sem vaga no prazo, a resposta é 503 com Retry-After.
+ *
+ * Ativo por padrão junto com spring.threads.virtual.enabled. O filtro é
+ * sempre registrado e a propriedade é lida na execução: com Spring AOT uma
+ * condição de bean ficaria fixada no valor do build.
+ */
+@Component
+public class LimiteConcorrenciaFilter extends OncePerRequestFilter {
+    private final boolean habilitado;
+    private final Semaphore vagas;
+    private final long esperaMs;
+    private final ObjectMapper objectMapper;
+
+    public LimiteConcorrenciaFilter(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${concorrencia.limite.habilitado:false}") boolean habilitado,
+            @Value("${concorrencia.limite.por-conexao:2}") int porConexao,
+            @Value("${concorrencia.limite.espera-ms:2000}") long esperaMs) throws SQLException {
+        int conexoes = dataSource.isWrapperFor(HikariDataSource.class)
+                ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                : 10;
+        this.habilitado = habilitado;
+        // Nem toda requisição usa o banco (caches em memória), por isso o fator por conexão
+        this.vagas = new Semaphore(Math.max(1, conexoes * porConexao), true);
+        this.esperaMs = esperaMs;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !habilitado || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        boolean obteve;
+        try {
+            obteve = vagas.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            obteve = false;
+        }
+
+        if (!obteve) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Servidor ocupado, tente novamente em instantes");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            objectMapper.writeValue(response.getOutputStream(), errorResponse);
+            return;
+        }
+
+        // Respostas em streaming liberam a vaga ao sair daqui: usam o pool próprio de exportação
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            vagas.release();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.feirasmart.config;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Comandos SQL e tempo de banco acumulados na thread atual, por requisição
+ * (OrcamentoSqlFilter) ou em volta de um trecho de teste:
+ *
+ * <pre>
+ * MedicaoSql medicao = MedicaoSql.medir(() -> mockMvc.perform(get("/api/pedidos")));
+ * medicao.exigirNoMaximo(3);
+ * </pre>
+ *
+ * Medições podem ser aninhadas: cada comando conta em todas as abertas.
+ * Comandos de outras threads (exportação em streaming, eventos) não entram.
+ */
+public final class MedicaoSql {
+    private static final ThreadLocal<MedicaoSql> ATUAL = new ThreadLocal<>();
+    private static final Pattern LITERAIS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTAS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private final MedicaoSql anterior;
+    private int comandos;
+    private long tempoMs;
+    // SQL como veio do Hibernate (com placeholders); normalizado só no relatório
+    private final Map<String, Integer> porSql = new HashMap<>();
+
+    private MedicaoSql(MedicaoSql anterior) {
+        this.anterior = anterior;
+    }
+
+    public static MedicaoSql iniciar() {
+        MedicaoSql medicao = new MedicaoSql(ATUAL.get());
+        ATUAL.set(medicao);
+        return medicao;
+    }
+
+    public void encerrar() {
+        if (ATUAL.get() != this) {
+            throw new IllegalStateException("Medição SQL encerrada fora de ordem");
+        }
+        if (anterior != null) {
+            ATUAL.set(anterior);
+        } else {
+            ATUAL.remove();
+        }
+    }
+
+    public static MedicaoSql medir(Trecho trecho) throws Exception {
+        MedicaoSql medicao = iniciar();
+        try {
+            trecho.executar();
+        } finally {
+            medicao.encerrar();
+        }
+        return medicao;
+    }
+
+    static boolean ativa() {
+        return ATUAL.get() != null;
+    }
+
+    // Chamado pelo listener do datasource-proxy na thread que executou o comando
+    static void registrar(List<String> sqls, long tempoMs) {
+        for (MedicaoSql medicao = ATUAL.get(); medicao != null; medicao = medicao.anterior) {
+            medicao.comandos++;
+            medicao.tempoMs += tempoMs;
+            for (String sql : sqls) {
+                medicao.porSql.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    public int getComandos() {
+        return comandos;
+    }
+
+    public long getTempoMs() {
+        return tempoMs;
+    }
+
+    /**
+     * Maior número de execuções de um mesmo SQL: acima de alguns, quase sempre N+1
+     */
+    public int getMaxRepeticoes() {
+        int max = 0;
+        for (int vezes : porSql.values()) {
+            max = Math.max(max, vezes);
+        }
+        return max;
+    }
+
+    /**
+     * Impressões digitais (SQL sem literais, listas IN colapsadas) com a contagem, das mais frequentes
+     */
+    public List<Map.Entry<String, Integer>> getImpressoes(int limite) {
+        Map<String, Integer> agrupado = new HashMap<>();
+        porSql.forEach((sql, vezes) -> agrupado.merge(impressao(sql), vezes, Integer::sum));
+        return agrupado.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+                .limit(limite)
+                .toList();
+    }
+
+    // "11x select ... | 1x select ..."
+    public String relatorio(int limite) {
+        StringBuilder texto = new StringBuilder();
+        for (Map.Entry<String, Integer> entrada : getImpressoes(limite)) {
+            if (!texto.isEmpty()) {
+                texto.append(" | ");
+            }
+            texto.append(entrada.getValue()).append("x ").append(entrada.getKey());
+        }
+        return texto.toString();
+    }
+
+    public static String impressao(String sql) {
+        String normalizado = LITERAIS.matcher(sql).replaceAll("?");
+        normalizado = LISTAS.matcher(normalizado).replaceAll("(?)");
+        normalizado = ESPACOS.matcher(normalizado).replaceAll(" ").trim();
+        return normalizado.length() > 300 ? normalizado.substring(0, 300) + "..." : normalizado;
+    }
+
+    public MedicaoSql exigirNoMaximo(int maxComandos) {
+        if (comandos > maxComandos) {
+            throw new OrcamentoSqlExcedidoException(
+                    "Esperado no máximo " + maxComandos + " comandos SQL, executados " + comandos + ": " + relatorio(5));
+        }
+        return this;
+    }
+
+    public MedicaoSql exigirSemRepeticaoAcimaDe(int maxRepeticoes) {
+        if (getMaxRepeticoes() > maxRepeticoes) {
+            throw new OrcamentoSqlExcedidoException(
+                    "SQL repetido " + getMaxRepeticoes() + " vezes (possível N+1): " + relatorio(3));
+        }
+        return this;
+    }
+
+    @FunctionalInterface
+    public interface Trecho {
+        void executar() throws Exception;
+    }
+
+    public static class OrcamentoSqlExcedidoException extends RuntimeException {
+        public OrcamentoSqlExcedidoException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.feirasmart.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Envolve o DataSource para somar cada comando SQL na MedicaoSql da thread
+ * (orçamento por requisição). Sem medição aberta, o custo é uma leitura de ThreadLocal.
+ */
+@Component
+@ConditionalOnProperty(name = "sql.orcamento.habilitado", havingValue = "true", matchIfMissing = true)
+public class MedicaoSqlPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new QueryExecutionListener() {
+                    @Override
+                    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                    }
+
+                    @Override
+                    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                        if (!MedicaoSql.ativa()) {
+                            return;
+                        }
+                        List<String> sqls = new ArrayList<>(queryInfoList.size());
+                        for (QueryInfo queryInfo : queryInfoList) {
+                            sqls.add(queryInfo.getQuery());
+                        }
+                        MedicaoSql.registrar(sqls, execInfo.getElapsedTime());
+                    }
+                })
+                .build();
+    }
+}
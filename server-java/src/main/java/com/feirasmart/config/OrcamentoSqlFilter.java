@@ -0,0 +1,133 @@
+package com.feirasmart.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Orçamento de SQL por requisição /api: conta os comandos e o tempo de banco
+ * (incluindo a busca do usuário no filtro JWT) e registra por rota
+ * feirasmart.sql.comandos e feirasmart.sql.tempo. Requisições acima de
+ * max-comandos, max-tempo-ms ou com o mesmo SQL repetido mais de
+ * max-repeticoes vezes (N+1) contam em feirasmart.sql.orcamento.excedido e
+ * geram um WARN com as impressões digitais dos comandos, no máximo um por rota
+ * a cada log-intervalo-ms.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "sql.orcamento.habilitado", havingValue = "true", matchIfMissing = true)
+public class OrcamentoSqlFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(OrcamentoSqlFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxComandos;
+    private final long maxTempoMs;
+    private final int maxRepeticoes;
+    private final long logIntervaloMs;
+    private final Map<String, Long> ultimoLogPorRota = new ConcurrentHashMap<>();
+
+    public OrcamentoSqlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${sql.orcamento.max-comandos:20}") int maxComandos,
+            @Value("${sql.orcamento.max-tempo-ms:250}") long maxTempoMs,
+            @Value("${sql.orcamento.max-repeticoes:10}") int maxRepeticoes,
+            @Value("${sql.orcamento.log-intervalo-ms:60000}") long logIntervaloMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxComandos = maxComandos;
+        this.maxTempoMs = maxTempoMs;
+        this.maxRepeticoes = maxRepeticoes;
+        this.logIntervaloMs = logIntervaloMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        MedicaoSql medicao = MedicaoSql.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            medicao.encerrar();
+            avaliar(request, medicao);
+        }
+    }
+
+    private void avaliar(HttpServletRequest request, MedicaoSql medicao) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String metodo = request.getMethod();
+        String uri = padrao != null ? padrao.toString() : "desconhecida";
+
+        DistributionSummary.builder("feirasmart.sql.comandos")
+                .description("Comandos SQL por requisição")
+                .tag("metodo", metodo)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(medicao.getComandos());
+        DistributionSummary.builder("feirasmart.sql.tempo")
+                .description("Tempo de banco por requisição")
+                .baseUnit("milliseconds")
+                .tag("metodo", metodo)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(medicao.getTempoMs());
+
+        List<String> motivos = new ArrayList<>(3);
+        if (medicao.getComandos() > maxComandos) {
+            motivos.add("comandos");
+        }
+        if (medicao.getTempoMs() > maxTempoMs) {
+            motivos.add("tempo");
+        }
+        if (medicao.getMaxRepeticoes() > maxRepeticoes) {
+            motivos.add("repeticao");
+        }
+        if (motivos.isEmpty()) {
+            return;
+        }
+
+        for (String motivo : motivos) {
+            Counter.builder("feirasmart.sql.orcamento.excedido")
+                    .description("Requisições acima do orçamento de SQL")
+                    .tag("metodo", metodo)
+                    .tag("uri", uri)
+                    .tag("motivo", motivo)
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        String rota = metodo + " " + uri;
+        long agora = System.currentTimeMillis();
+        Long ultimo = ultimoLogPorRota.get(rota);
+        if (ultimo != null && agora - ultimo < logIntervaloMs) {
+            return;
+        }
+        ultimoLogPorRota.put(rota, agora);
+        log.warn("Orçamento de SQL excedido em {} ({}): {} comandos, {} ms, SQL mais repetido {}x. Comandos: {}",
+                rota, motivos, medicao.getComandos(), medicao.getTempoMs(), medicao.getMaxRepeticoes(),
+                medicao.relatorio(5));
+    }
+}
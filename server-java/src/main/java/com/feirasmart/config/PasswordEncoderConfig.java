@@ -1,5 +1,7 @@
 package com.feirasmart.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -8,25 +10,46 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @Configuration
 public class PasswordEncoderConfig {
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new PasswordEncoderMedido(new BCryptPasswordEncoder(), meterRegistry);
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    /**
+     * BCrypt é propositalmente lento (dezenas de ms por verificação): o tempo
+     * de cadastro e login fica visível em feirasmart.senha.bcrypt
+     */
+    static class PasswordEncoderMedido implements PasswordEncoder {
+        private final PasswordEncoder delegate;
+        private final Timer encode;
+        private final Timer matches;
+
+        PasswordEncoderMedido(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+            this.delegate = delegate;
+            this.encode = timer(meterRegistry, "encode");
+            this.matches = timer(meterRegistry, "matches");
+        }
+
+        private static Timer timer(MeterRegistry meterRegistry, String operacao) {
+            return Timer.builder("feirasmart.senha.bcrypt")
+                    .description("Tempo de hash e verificação de senha")
+                    .tag("operacao", operacao)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return encode.record(() -> delegate.encode(rawPassword));
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            Boolean resultado = matches.record(() -> delegate.matches(rawPassword, encodedPassword));
+            return Boolean.TRUE.equals(resultado);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return delegate.upgradeEncoding(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.feirasmart.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Saturação do pool do HikariCP (nome "poolConexoes"). Com todas as conexões
+ * em uso e mais de max-espera threads esperando por uma, a instância fica
+ * OUT_OF_SERVICE na prontidão: novas requisições só aumentariam a fila.
+ */
+@Component("poolConexoes")
+public class PoolConexoesHealthIndicator extends AbstractHealthIndicator {
+    private final HikariDataSource hikari;
+    private final int maxEspera;
+
+    public PoolConexoesHealthIndicator(
+            DataSource dataSource,
+            @Value("${saude.pool.max-espera:10}") int maxEspera) throws SQLException {
+        super("Falha ao ler o pool de conexões");
+        this.hikari = dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        this.maxEspera = maxEspera;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        HikariPoolMXBean pool = hikari != null ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            // Pool ainda não iniciado (ou DataSource sem Hikari)
+            builder.unknown();
+            return;
+        }
+        int ativas = pool.getActiveConnections();
+        int esperando = pool.getThreadsAwaitingConnection();
+        int maximo = hikari.getMaximumPoolSize();
+        boolean saturado = ativas >= maximo && esperando > maxEspera;
+        builder.status(saturado ? Status.OUT_OF_SERVICE : Status.UP)
+                .withDetail("ativas", ativas)
+                .withDetail("ociosas", pool.getIdleConnections())
+                .withDetail("maximo", maximo)
+                .withDetail("esperando", esperando);
+    }
+}
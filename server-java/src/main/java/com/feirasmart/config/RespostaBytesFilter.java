@@ -0,0 +1,169 @@
+package com.feirasmart.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mede os bytes de corpo que a aplicação entrega ao Tomcat nas rotas /api.
+ * Respostas pré-comprimidas (Content-Encoding definido pela aplicação) já
+ * saem com o tamanho final; nas demais o Tomcat ainda pode comprimir acima de
+ * server.compression.min-response-size, e os bytes efetivamente enviados
+ * aparecem no total de tomcat.global.sent.
+ */
+@Component
+public class RespostaBytesFilter extends OncePerRequestFilter {
+    private final DistributionSummary bytesGzip;
+    private final DistributionSummary bytesIdentidade;
+
+    public RespostaBytesFilter(MeterRegistry registry) {
+        this.bytesGzip = resumo(registry, "gzip");
+        this.bytesIdentidade = resumo(registry, "identity");
+    }
+
+    private static DistributionSummary resumo(MeterRegistry registry, String codificacao) {
+        return DistributionSummary.builder("feirasmart.resposta.bytes")
+                .description("Bytes de corpo escritos pela aplicação por resposta")
+                .baseUnit("bytes")
+                .tag("codificacao", codificacao)
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RespostaContada contada = new RespostaContada(response);
+        try {
+            filterChain.doFilter(request, contada);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streaming (ex.: exportação): registra quando a resposta assíncrona terminar
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        registrar(contada);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                registrar(contada);
+            }
+        }
+    }
+
+    private void registrar(RespostaContada resposta) {
+        resposta.flushWriter();
+        if (resposta.bytes == 0) {
+            return;
+        }
+        String codificacao = resposta.getHeader(HttpHeaders.CONTENT_ENCODING);
+        (codificacao != null ? bytesGzip : bytesIdentidade).record(resposta.bytes);
+    }
+
+    private static class RespostaContada extends HttpServletResponseWrapper {
+        private long bytes;
+        private ServletOutputStream saida;
+        private PrintWriter writer;
+
+        RespostaContada(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (saida == null) {
+                ServletOutputStream original = super.getOutputStream();
+                saida = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        original.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        original.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        original.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        original.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return original.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        original.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return saida;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            super.flushBuffer();
+        }
+
+        void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.feirasmart.config;
+
+import com.feirasmart.service.CorpoJson;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monta a resposta de um corpo JSON pré-serializado, escolhendo a versão
+ * gzip quando o cliente aceita. O Tomcat não recomprime respostas que já
+ * têm Content-Encoding, então esse caminho não gasta CPU de compressão.
+ */
+@Component
+public class RespostaJsonWriter {
+    private final DistributionSummary razaoCompressao;
+
+    public RespostaJsonWriter(MeterRegistry registry) {
+        this.razaoCompressao = DistributionSummary.builder("feirasmart.resposta.compressao.razao")
+                .description("Tamanho original / tamanho enviado das respostas pré-comprimidas")
+                .register(registry);
+    }
+
+    public ResponseEntity<byte[]> responder(CorpoJson corpo, String acceptEncoding) {
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .eTag(corpo.getEtag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (corpo.getGzip() != null && aceitaGzip(acceptEncoding)) {
+            razaoCompressao.record((double) corpo.getJson().length / corpo.getGzip().length);
+            return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(corpo.getGzip());
+        }
+        return resposta.body(corpo.getJson());
+    }
+
+    // "gzip" ou "*" na lista, a menos que venha com q=0
+    static boolean aceitaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String item : acceptEncoding.split(",")) {
+            String[] partes = item.trim().split(";");
+            String codificacao = partes[0].trim();
+            if (!codificacao.equalsIgnoreCase("gzip") && !codificacao.equals("*")) {
+                continue;
+            }
+            boolean recusado = false;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].replace(" ", "");
+                if (parametro.matches("q=0(\\.0{0,3})?")) {
+                    recusado = true;
+                }
+            }
+            if (!recusado) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.feirasmart.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -14,15 +15,19 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import jakarta.servlet.DispatcherType;
 import java.util.Arrays;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final int portaGerenciamento;
 
-    public SecurityConfig(@Lazy JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(@Lazy JwtAuthenticationFilter jwtAuthenticationFilter,
+                          @Value("${management.server.port:-1}") int portaGerenciamento) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.portaGerenciamento = portaGerenciamento;
     }
 
     @Bean
@@ -32,10 +37,15 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Despacho assíncrono (respostas em streaming): a requisição já foi autorizada na entrada
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/", "/favicon.ico").permitAll()
                 .requestMatchers("/health", "/api/auth/register", "/api/auth/login").permitAll()
+                // Porta de gerenciamento (Actuator), acessível só pela rede interna: coleta do Prometheus
+                .requestMatchers(request -> request.getLocalPort() == portaGerenciamento).permitAll()
+                .requestMatchers("/livez", "/readyz").permitAll() // Sondas na porta da API
                 .requestMatchers("/api/feiras/**", "/api/produtos/**", "/api/feirantes/**").permitAll()
-                .requestMatchers("/uploads/**").permitAll() // Permitir acesso às imagens (ResourceHandler)
+                .requestMatchers("/uploads/**").permitAll() // Permitir acesso às imagens (ImageController)
                 .requestMatchers("/api/upload/**").permitAll() // Permitir upload (pode ajustar para autenticado depois)
                 .anyRequest().authenticated()
             )
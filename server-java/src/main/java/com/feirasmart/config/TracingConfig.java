@@ -0,0 +1,33 @@
+package com.feirasmart.config;
+
+import io.micrometer.observation.ObservationPredicate;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Exportação dos spans para análise offline: cada lote sai como uma linha
+     * OTLP JSON no logger io.opentelemetry.exporter.logging.otlp, que o
+     * logback-spring.xml grava em tracing.arquivo, com rotação.
+     * O arquivo é lido pelo receptor otlpjsonfile do OpenTelemetry Collector.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "management.tracing.enabled", havingValue = "true", matchIfMissing = true)
+    public SpanExporter otlpJsonSpanExporter() {
+        return OtlpJsonLoggingSpanExporter.create();
+    }
+
+    /**
+     * O Spring Security observa cada filtro da cadeia (uns 30 spans por requisição);
+     * o tempo da autenticação já aparece no span do JwtAuthenticationFilter
+     */
+    @Bean
+    public ObservationPredicate semObservacoesDoSpringSecurity() {
+        return (nome, contexto) -> !nome.startsWith("spring.security.");
+    }
+}
@@ -0,0 +1,154 @@
+package com.feirasmart.controller;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.feirasmart.config.JwtUserExtractor;
+import com.feirasmart.model.CarrinhoItem;
+import com.feirasmart.model.User;
+import com.feirasmart.service.CarrinhoService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/carrinho")
+@CrossOrigin(origins = "*")
+public class CarrinhoController {
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private JwtUserExtractor jwtUserExtractor;
+
+    @GetMapping
+    public ResponseEntity<List<CarrinhoItem>> getCarrinho(HttpServletRequest request) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+            return ResponseEntity.ok(carrinhoService.listar(user.getId()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
+    @PostMapping("/itens")
+    public ResponseEntity<?> addItem(
+            HttpServletRequest request,
+            @RequestBody AddItemRequest addRequest) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+
+            if (!user.getTipo().name().equals("CLIENTE")) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Apenas clientes podem usar o carrinho");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+            }
+
+            if (addRequest.getProdutoId() == null || addRequest.getFeiranteId() == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "produto_id e feirante_id são obrigatórios");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+
+            CarrinhoItem item = carrinhoService.adicionar(
+                    user,
+                    addRequest.getProdutoId(),
+                    addRequest.getFeiranteId(),
+                    addRequest.getQuantidade() != null ? addRequest.getQuantidade() : 1
+            );
+            return ResponseEntity.status(HttpStatus.CREATED).body(item);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao adicionar item ao carrinho");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erro de autenticação ou autorização");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+    }
+
+    @PutMapping("/itens/{id}")
+    public ResponseEntity<?> updateItem(
+            @PathVariable UUID id,
+            HttpServletRequest request,
+            @RequestBody Map<String, Integer> requestBody) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+            CarrinhoItem item = carrinhoService.atualizarQuantidade(user.getId(), id, requestBody.get("quantidade"));
+            if (item == null) {
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.ok(item);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage() != null ? e.getMessage() : "Item do carrinho não encontrado");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
+    @DeleteMapping("/itens/{id}")
+    public ResponseEntity<?> removeItem(@PathVariable UUID id, HttpServletRequest request) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+            carrinhoService.remover(user.getId(), id);
+            return ResponseEntity.ok().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clear(HttpServletRequest request) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+            carrinhoService.limpar(user.getId());
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
+    private static class AddItemRequest {
+        @JsonProperty("produto_id")
+        private UUID produtoId;
+
+        @JsonProperty("feirante_id")
+        private UUID feiranteId;
+
+        private Integer quantidade;
+
+        public UUID getProdutoId() {
+            return produtoId;
+        }
+
+        public void setProdutoId(UUID produtoId) {
+            this.produtoId = produtoId;
+        }
+
+        public UUID getFeiranteId() {
+            return feiranteId;
+        }
+
+        public void setFeiranteId(UUID feiranteId) {
+            this.feiranteId = feiranteId;
+        }
+
+        public Integer getQuantidade() {
+            return quantidade;
+        }
+
+        public void setQuantidade(Integer quantidade) {
+            this.quantidade = quantidade;
+        }
+    }
+}
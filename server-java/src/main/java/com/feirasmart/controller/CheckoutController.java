@@ -0,0 +1,148 @@
+package com.feirasmart.controller;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.feirasmart.config.JwtUserExtractor;
+import com.feirasmart.model.Pedido;
+import com.feirasmart.model.User;
+import com.feirasmart.service.CheckoutService;
+import com.feirasmart.service.PrecificacaoService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/checkout")
+@CrossOrigin(origins = "*")
+public class CheckoutController {
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private JwtUserExtractor jwtUserExtractor;
+
+    @PostMapping
+    public ResponseEntity<?> checkout(
+            HttpServletRequest request,
+            @RequestBody(required = false) CheckoutRequest checkoutRequest) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+
+            if (!user.getTipo().name().equals("CLIENTE")) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Apenas clientes podem finalizar compras");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+            }
+
+            // Sem itens no corpo, o checkout usa o carrinho salvo no servidor
+            List<CheckoutService.ItemCheckoutDTO> itensDTO = null;
+            Map<UUID, String> observacoes = null;
+            if (checkoutRequest != null) {
+                observacoes = checkoutRequest.getObservacoes();
+                if (checkoutRequest.getItens() != null) {
+                    itensDTO = checkoutRequest.getItens().stream()
+                            .map(item -> {
+                                CheckoutService.ItemCheckoutDTO dto = new CheckoutService.ItemCheckoutDTO();
+                                dto.setProdutoId(item.getProdutoId());
+                                dto.setFeiranteId(item.getFeiranteId());
+                                dto.setQuantidade(item.getQuantidade());
+                                dto.setPreco(item.getPreco());
+                                return dto;
+                            })
+                            .toList();
+                }
+            }
+
+            List<Pedido> pedidos = checkoutService.checkout(user, itensDTO, observacoes);
+            return ResponseEntity.status(HttpStatus.CREATED).body(pedidos);
+        } catch (PrecificacaoService.PrecoDivergenteException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("divergencias", e.getDivergencias());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao finalizar compra");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erro ao finalizar compra: " + (e.getMessage() != null ? e.getMessage() : "Erro desconhecido"));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    private static class CheckoutRequest {
+        private List<ItemRequest> itens;
+
+        // Observações por feirante: { "<feirante_id>": "texto" }
+        private Map<UUID, String> observacoes;
+
+        public List<ItemRequest> getItens() {
+            return itens;
+        }
+
+        public void setItens(List<ItemRequest> itens) {
+            this.itens = itens;
+        }
+
+        public Map<UUID, String> getObservacoes() {
+            return observacoes;
+        }
+
+        public void setObservacoes(Map<UUID, String> observacoes) {
+            this.observacoes = observacoes;
+        }
+    }
+
+    private static class ItemRequest {
+        @JsonProperty("produto_id")
+        private UUID produtoId;
+
+        @JsonProperty("feirante_id")
+        private UUID feiranteId;
+
+        private Integer quantidade;
+
+        // Preço exibido ao cliente; se vier e estiver desatualizado, o checkout é recusado
+        private BigDecimal preco;
+
+        public UUID getProdutoId() {
+            return produtoId;
+        }
+
+        public void setProdutoId(UUID produtoId) {
+            this.produtoId = produtoId;
+        }
+
+        public UUID getFeiranteId() {
+            return feiranteId;
+        }
+
+        public void setFeiranteId(UUID feiranteId) {
+            this.feiranteId = feiranteId;
+        }
+
+        public Integer getQuantidade() {
+            return quantidade;
+        }
+
+        public void setQuantidade(Integer quantidade) {
+            this.quantidade = quantidade;
+        }
+
+        public BigDecimal getPreco() {
+            return preco;
+        }
+
+        public void setPreco(BigDecimal preco) {
+            this.preco = preco;
+        }
+    }
+}
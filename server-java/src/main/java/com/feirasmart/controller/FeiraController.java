@@ -1,11 +1,17 @@
 package com.feirasmart.controller;
 
+import com.feirasmart.config.RespostaJsonWriter;
 import com.feirasmart.model.Feira;
+import com.feirasmart.service.AvaliacaoService;
 import com.feirasmart.service.FeiraService;
+import com.feirasmart.service.FeiraSnapshotService;
+import com.feirasmart.service.RankingVendasService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,6 +23,18 @@ public class FeiraController {
     @Autowired
     private FeiraService feiraService;
 
+    @Autowired
+    private RankingVendasService rankingVendasService;
+
+    @Autowired
+    private AvaliacaoService avaliacaoService;
+
+    @Autowired
+    private FeiraSnapshotService feiraSnapshotService;
+
+    @Autowired
+    private RespostaJsonWriter respostaJsonWriter;
+
     @GetMapping
     public ResponseEntity<List<Feira>> getAll() {
         return ResponseEntity.ok(feiraService.findAll());
@@ -31,6 +49,51 @@ public class FeiraController {
         }
     }
 
+    /**
+     * Feira, feirantes e produtos disponíveis num único payload, servido do
+     * cache já serializado (e comprimido, se o cliente aceitar gzip)
+     */
+    @GetMapping("/{id}/snapshot")
+    public ResponseEntity<byte[]> getSnapshot(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        FeiraSnapshotService.SnapshotFeira snapshot;
+        try {
+            snapshot = feiraSnapshotService.obter(id);
+        } catch (FeiraSnapshotService.FeiraNaoEncontradaException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        if (webRequest.checkNotModified(snapshot.getCorpo().getEtag())) {
+            return null;
+        }
+        return respostaJsonWriter.responder(snapshot.getCorpo(), acceptEncoding);
+    }
+
+    // Rankings mantidos em memória (RankingVendasService): a leitura não consulta o banco
+    @GetMapping("/{id}/top-produtos")
+    public ResponseEntity<List<RankingVendasService.ItemRanking>> getTopProdutos(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(rankingVendasService.topProdutos(id, limite));
+    }
+
+    @GetMapping("/{id}/top-feirantes")
+    public ResponseEntity<List<RankingVendasService.ItemRanking>> getTopFeirantes(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(rankingVendasService.topFeirantes(id, limite));
+    }
+
+    // Índice ordenado em memória, atualizado a cada avaliação
+    @GetMapping("/{id}/melhores-feirantes")
+    public ResponseEntity<List<AvaliacaoService.FeiranteAvaliado>> getMelhoresFeirantes(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(avaliacaoService.melhoresAvaliados(id, limite));
+    }
+
     @PostMapping
     public ResponseEntity<Feira> create(@RequestBody Feira feira) {
         return ResponseEntity.status(HttpStatus.CREATED).body(feiraService.create(feira));
@@ -5,14 +5,21 @@ import com.feirasmart.config.JwtUserExtractor;
 import com.feirasmart.model.Feira;
 import com.feirasmart.model.Feirante;
 import com.feirasmart.model.User;
+import com.feirasmart.service.AvaliacaoService;
 import com.feirasmart.service.DashboardStatsService;
 import com.feirasmart.service.FeiranteService;
+import com.feirasmart.service.VendasRollupService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,12 +29,20 @@ import java.util.UUID;
 @RequestMapping("/api/feirantes")
 @CrossOrigin(origins = "*")
 public class FeiranteController {
+    private static final Logger log = LoggerFactory.getLogger(FeiranteController.class);
+
     @Autowired
     private FeiranteService feiranteService;
 
     @Autowired
     private DashboardStatsService dashboardStatsService;
 
+    @Autowired
+    private VendasRollupService vendasRollupService;
+
+    @Autowired
+    private AvaliacaoService avaliacaoService;
+
     @Autowired
     private JwtUserExtractor jwtUserExtractor;
 
@@ -60,6 +75,52 @@ public class FeiranteController {
         }
     }
 
+    /**
+     * Série de receita e pedidos do feirante por hora, dia, semana ou mês,
+     * opcionalmente por produto ou por feira. Lida dos agregados de vendas.
+     */
+    @GetMapping("/stats/vendas")
+    public ResponseEntity<?> getVendasStats(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "dia") String granularidade,
+            @RequestParam(defaultValue = "nenhum") String agrupar,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestParam(required = false) UUID feira_id) {
+        User user;
+        try {
+            user = jwtUserExtractor.extractUser(request);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!user.getTipo().name().equals("FEIRANTE")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        VendasRollupService.Granularidade granularidadeConsulta;
+        VendasRollupService.Agrupamento agrupamento;
+        try {
+            granularidadeConsulta = VendasRollupService.Granularidade.valueOf(granularidade.toUpperCase());
+            agrupamento = VendasRollupService.Agrupamento.valueOf(agrupar.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Use granularidade hora, dia, semana ou mes e agrupar nenhum, produto ou feira");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+
+        LocalDate dataFim = fim != null ? fim : LocalDate.now();
+        LocalDate dataInicio = inicio != null ? inicio : dataFim.minusDays(29);
+        long dias = ChronoUnit.DAYS.between(dataInicio, dataFim);
+        if (dias < 0 || dias > (granularidadeConsulta == VendasRollupService.Granularidade.HORA ? 31 : 3660)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Período inválido (máximo de 31 dias por hora e 10 anos nas demais granularidades)");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+
+        return ResponseEntity.ok(vendasRollupService.consultar(
+                user.getId(), granularidadeConsulta, dataInicio, dataFim, agrupamento, feira_id));
+    }
+
     @GetMapping("/minhas-feiras")
     public ResponseEntity<List<Map<String, Object>>> getMinhasFeiras(HttpServletRequest request) {
         try {
@@ -105,14 +166,9 @@ public class FeiranteController {
             HttpServletRequest request,
             @RequestBody CreateFeiranteRequest createRequest) {
         try {
-            System.out.println("📥 POST /api/feirantes - Requisição recebida");
-            System.out.println("📥 Body recebido: " + createRequest);
-            
             User user = jwtUserExtractor.extractUser(request);
-            System.out.println("✅ Usuário extraído: " + user.getId() + " - " + user.getTipo());
             
             if (!user.getTipo().name().equals("FEIRANTE")) {
-                System.out.println("❌ Usuário não é feirante: " + user.getTipo());
                 Map<String, String> error = new HashMap<>();
                 error.put("error", "Apenas feirantes podem se cadastrar em feiras");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
@@ -126,23 +182,53 @@ public class FeiranteController {
                     createRequest.getCategoria(),
                     createRequest.getAvatar()
             );
-            System.out.println("✅ Feirante criado com sucesso: " + feirante.getId());
+            log.debug("Feirante {} criado: usuario={} feira={}", feirante.getId(), user.getId(), createRequest.getFeiraId());
             return ResponseEntity.status(HttpStatus.CREATED).body(feirante);
         } catch (RuntimeException e) {
-            System.out.println("❌ RuntimeException ao criar feirante: " + e.getMessage());
-            e.printStackTrace();
+            log.info("Cadastro de feirante rejeitado: {}", e.getMessage());
+            log.debug("Pilha do cadastro rejeitado", e);
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao criar feirante");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
-            System.out.println("❌ Exception ao criar feirante: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Falha ao criar feirante: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
             error.put("error", "Erro de autenticação ou autorização");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
         }
     }
 
+    @PostMapping("/{id}/avaliacoes")
+    public ResponseEntity<?> avaliar(
+            @PathVariable UUID id,
+            HttpServletRequest request,
+            @RequestBody AvaliacaoRequest avaliacaoRequest) {
+        User user;
+        try {
+            user = jwtUserExtractor.extractUser(request);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erro de autenticação ou autorização");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        if (!user.getTipo().name().equals("CLIENTE")) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Apenas clientes podem avaliar feirantes");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+
+        try {
+            AvaliacaoService.FeiranteAvaliado avaliado = avaliacaoService.avaliar(
+                    user, id, avaliacaoRequest.getNota(), avaliacaoRequest.getComentario());
+            return ResponseEntity.status(HttpStatus.CREATED).body(avaliado);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao avaliar feirante");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Feirante> update(
             @PathVariable UUID id,
@@ -297,10 +383,25 @@ public class FeiranteController {
             this.avatar = avatar;
         }
     }
-}
-
 
+    private static class AvaliacaoRequest {
+        private Integer nota;
+        private String comentario;
 
+        public Integer getNota() {
+            return nota;
+        }
 
+        public void setNota(Integer nota) {
+            this.nota = nota;
+        }
 
+        public String getComentario() {
+            return comentario;
+        }
 
+        public void setComentario(String comentario) {
+            this.comentario = comentario;
+        }
+    }
+}
@@ -1,37 +1,47 @@
 package com.feirasmart.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.CompositeHealth;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
 public class HealthController {
+    @Autowired
+    private HealthEndpoint healthEndpoint;
+
+    /**
+     * Mesmo resultado da prontidão (/actuator/health/readiness): 503 enquanto
+     * a aplicação inicia ou se banco, pool, disco ou fila de eventos falharem
+     */
     @GetMapping("/health")
-    public ResponseEntity<Map<String, String>> health() {
-        Map<String, String> response = new HashMap<>();
-        response.put("status", "ok");
-        response.put("message", "API FeiraSmart está funcionando!");
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> health() {
+        HealthComponent prontidao = healthEndpoint.healthForPath("readiness");
+        Status status = prontidao != null ? prontidao.getStatus() : healthEndpoint.health().getStatus();
+
+        Map<String, Object> response = new HashMap<>();
+        if (Status.UP.equals(status)) {
+            response.put("status", "ok");
+            response.put("message", "API FeiraSmart está funcionando!");
+        } else {
+            response.put("status", "indisponivel");
+            response.put("message", "API FeiraSmart fora de serviço: " + status.getCode());
+        }
+        if (prontidao instanceof CompositeHealth composto) {
+            Map<String, String> componentes = new LinkedHashMap<>();
+            composto.getComponents().forEach((nome, componente) -> componentes.put(nome, componente.getStatus().getCode()));
+            response.put("componentes", componentes);
+        }
+        return ResponseEntity.status(Status.UP.equals(status) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(response);
     }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
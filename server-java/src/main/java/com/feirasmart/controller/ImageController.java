@@ -1,97 +1,208 @@
 package com.feirasmart.controller;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import com.feirasmart.config.AmostragemTurboFilter;
+import com.feirasmart.service.ArquivosImagemService;
+import com.feirasmart.service.ArquivosImagemService.ArquivoImagem;
+import com.feirasmart.service.CacheImagensService;
+import com.feirasmart.service.VariantesImagemService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Único caminho de entrega das imagens de /uploads: metadados em memória
+ * (ArquivosImagemService), ETag/Last-Modified com requisições condicionais,
+ * Range de um intervalo e corpo do cache de imagens quentes
+ * (CacheImagensService), por sendfile do Tomcat, ou FileChannel.transferTo
+ * quando o conector não oferece sendfile.
+ */
 @RestController
 @RequestMapping("/uploads")
 @CrossOrigin(origins = "*")
 public class ImageController {
+    private static final Logger log = LoggerFactory.getLogger(ImageController.class);
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    // Nomes pelo conteúdo (hash) nunca mudam de bytes: cache de um ano sem revalidar
+    private static final CacheControl CACHE_IMUTAVEL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    // Nomes antigos (UUID): uma hora, como o antigo resource handler de /uploads/**
+    private static final CacheControl CACHE_LEGADO = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
 
-    @GetMapping("/feiras/{filename:.+}")
-    public ResponseEntity<Resource> getFeiraImage(@PathVariable String filename) {
-        try {
-            // Resolver caminho do arquivo
-            Path uploadPath;
-            if (Paths.get(uploadDir).isAbsolute()) {
-                uploadPath = Paths.get(uploadDir);
-            } else {
-                String userDir = System.getProperty("user.dir");
-                uploadPath = Paths.get(userDir, uploadDir);
-            }
-            uploadPath = uploadPath.toAbsolutePath();
+    // Atributos do Tomcat: com sendfile o corpo é enviado pelo conector, do arquivo direto para o socket
+    private static final String SENDFILE_SUPORTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARQUIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIM = "org.apache.tomcat.sendfile.end";
 
-            Path filePath = uploadPath.resolve("feiras").resolve(filename);
+    @Autowired
+    private ArquivosImagemService arquivosImagemService;
 
-            File file = filePath.toFile();
-            
-            if (!file.exists() || !file.isFile()) {
-                System.out.println("❌ Arquivo não encontrado: " + filePath);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-            }
-
-            Resource resource = new FileSystemResource(file);
-
-            // Determinar content type
-            String contentType = null;
-            try {
-                contentType = Files.probeContentType(filePath);
-            } catch (Exception e) {
-                // Ignorar erro ao detectar content type
-            }
-            
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-                // Tentar determinar pelo nome do arquivo
-                String lowerFilename = filename.toLowerCase();
-                if (lowerFilename.endsWith(".jpg") || lowerFilename.endsWith(".jpeg")) {
-                    contentType = "image/jpeg";
-                } else if (lowerFilename.endsWith(".png")) {
-                    contentType = "image/png";
-                } else if (lowerFilename.endsWith(".gif")) {
-                    contentType = "image/gif";
-                } else if (lowerFilename.endsWith(".webp")) {
-                    contentType = "image/webp";
-                }
-            }
+    @Autowired
+    private VariantesImagemService variantesImagemService;
 
-            System.out.println("✅ Servindo arquivo: " + filePath);
-            System.out.println("   Content-Type: " + contentType);
+    @Autowired
+    private CacheImagensService cacheImagensService;
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                    .body(resource);
+    /**
+     * Com ?w= serve a menor variante redimensionada (JPEG) com pelo menos essa
+     * largura; sem variante pronta, serve o original
+     */
+    @GetMapping("/feiras/{filename:.+}")
+    public void getFeiraImage(@PathVariable String filename,
+                              @RequestParam(required = false) Integer w,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        // Uploads antigos (UUID), anteriores ao armazenamento pelo conteúdo
+        servir(filename, w, false, request, response);
+    }
 
-        } catch (Exception e) {
-            System.err.println("❌ Erro ao servir imagem: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * Imagens endereçadas pelo conteúdo: /uploads/feiras/{hash[0..2]}/{hash}.{ext}
+     */
+    @GetMapping("/feiras/{prefixo:[0-9a-f]{2}}/{filename:.+}")
+    public void getFeiraImagePorHash(@PathVariable String prefixo,
+                                     @PathVariable String filename,
+                                     @RequestParam(required = false) Integer w,
+                                     HttpServletRequest request,
+                                     HttpServletResponse response) throws IOException {
+        if (!filename.startsWith(prefixo)) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
+        servir(prefixo + "/" + filename, w, true, request, response);
     }
-}
-
-
-
-
 
+    private void servir(String filename, Integer w, boolean imutavel,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // O original primeiro: URL quebrada com ?w= não agenda geração de variantes
+        ArquivoImagem arquivo = arquivosImagemService.buscar(filename);
+        if (arquivo == null) {
+            log.debug(AmostragemTurboFilter.AMOSTRADO, "Imagem não encontrada: {}", filename);
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        CacheControl cache = imutavel ? CACHE_IMUTAVEL : CACHE_LEGADO;
+        ArquivoImagem variante = w != null ? variantesImagemService.buscar(filename, w) : null;
+        if (variante != null) {
+            arquivo = variante;
+        } else if (imutavel && w != null && variantesImagemService.prevista(filename, w)) {
+            // Original no lugar de uma variante ainda não gerada: não pode ficar em cache por muito tempo.
+            // Sem variante prevista (webp, largura acima da maior, imagem ilegível) o original é a resposta definitiva
+            cache = CacheControl.maxAge(1, TimeUnit.MINUTES).cachePublic();
+        }
 
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cache.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // ETag e Last-Modified; 304 (ou 412) conforme If-None-Match, If-Modified-Since, If-Match...
+        if (new ServletWebRequest(request, response).checkNotModified(arquivo.getEtag(), arquivo.getModificado())) {
+            return;
+        }
 
+        long tamanho = arquivo.getTamanho();
+        long inicio = 0;
+        long fim = tamanho - 1;
+        List<HttpRange> intervalos = intervalos(request, arquivo);
+        // Vários intervalos (multipart/byteranges) não são atendidos: o arquivo inteiro é servido
+        if (intervalos.size() == 1) {
+            inicio = intervalos.get(0).getRangeStart(tamanho);
+            fim = intervalos.get(0).getRangeEnd(tamanho);
+            if (inicio >= tamanho || inicio > fim) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanho);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fim + "/" + tamanho);
+        }
 
+        response.setContentType(arquivo.getContentType().toString());
+        response.setContentLengthLong(fim - inicio + 1);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + arquivo.getCaminho().getFileName() + "\"");
+        if ("HEAD".equals(request.getMethod()) || fim < inicio) {
+            return;
+        }
 
+        long enviados = fim - inicio + 1;
+        try {
+            ByteBuffer conteudo = cacheImagensService.buscar(arquivo);
+            if (conteudo != null) {
+                conteudo.position((int) inicio).limit((int) fim + 1);
+                WritableByteChannel saida = Channels.newChannel(response.getOutputStream());
+                while (conteudo.hasRemaining()) {
+                    saida.write(conteudo);
+                }
+                cacheImagensService.registrarEnvio("memoria", enviados);
+                return;
+            }
 
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPORTE))) {
+                request.setAttribute(SENDFILE_ARQUIVO, arquivo.getCaminho().toString());
+                request.setAttribute(SENDFILE_INICIO, inicio);
+                request.setAttribute(SENDFILE_FIM, fim + 1);
+                cacheImagensService.registrarEnvio("sendfile", enviados);
+                return;
+            }
+            try (FileChannel canal = FileChannel.open(arquivo.getCaminho(), StandardOpenOption.READ)) {
+                WritableByteChannel saida = Channels.newChannel(response.getOutputStream());
+                for (long posicao = inicio; posicao <= fim; ) {
+                    posicao += canal.transferTo(posicao, fim + 1 - posicao, saida);
+                }
+            }
+            cacheImagensService.registrarEnvio("canal", enviados);
+        } catch (NoSuchFileException e) {
+            // Excluído por fora da API depois de entrar nos metadados
+            arquivosImagemService.descartar(arquivo);
+            response.reset();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+        } catch (IOException e) {
+            // Quase sempre o cliente que fechou a conexão: não é erro do servidor
+            log.debug("Envio da imagem {} interrompido: {}", filename, e.toString());
+        }
+    }
 
+    // Range só vale se o If-Range (quando enviado) ainda corresponde ao arquivo; Range inválido é ignorado
+    private static List<HttpRange> intervalos(HttpServletRequest request, ArquivoImagem arquivo) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null) {
+            return List.of();
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            boolean corresponde;
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                corresponde = ifRange.equals(arquivo.getEtag());
+            } else {
+                try {
+                    corresponde = request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == arquivo.getModificado() / 1000;
+                } catch (IllegalArgumentException e) {
+                    corresponde = false;
+                }
+            }
+            if (!corresponde) {
+                return List.of();
+            }
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
@@ -1,19 +1,30 @@
 package com.feirasmart.controller;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.feirasmart.config.AmostragemTurboFilter;
 import com.feirasmart.config.JwtUserExtractor;
 import com.feirasmart.model.Pedido;
 import com.feirasmart.model.PedidoStatus;
 import com.feirasmart.model.User;
 import com.feirasmart.repository.PedidoRepository;
+import com.feirasmart.service.PedidoExportService;
 import com.feirasmart.service.PedidoService;
+import com.feirasmart.service.PrecificacaoService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +34,8 @@ import java.util.UUID;
 @RequestMapping("/api/pedidos")
 @CrossOrigin(origins = "*")
 public class PedidoController {
+    private static final Logger log = LoggerFactory.getLogger(PedidoController.class);
+
     @Autowired
     private PedidoRepository pedidoRepository;
 
@@ -32,23 +45,19 @@ public class PedidoController {
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private PedidoExportService pedidoExportService;
+
     @PostMapping
     public ResponseEntity<?> create(
             HttpServletRequest request,
             @RequestBody CreatePedidoRequest createRequest) {
         try {
-            System.out.println("📥 Recebendo requisição para criar pedido");
-            System.out.println("   feirante_id=" + createRequest.getFeiranteId());
-            System.out.println("   feira_id=" + createRequest.getFeiraId());
-            System.out.println("   itens=" + (createRequest.getItens() != null ? createRequest.getItens().size() : 0));
-            
             // Extrair usuário do token (cliente)
             User user = jwtUserExtractor.extractUser(request);
-            System.out.println("✅ Usuário extraído: " + user.getId() + " tipo: " + user.getTipo());
             
             // Verificar se é cliente
             if (!user.getTipo().name().equals("CLIENTE")) {
-                System.err.println("❌ Usuário não é cliente: " + user.getTipo());
                 Map<String, String> errorResponse = new HashMap<>();
                 errorResponse.put("error", "Apenas clientes podem criar pedidos");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
@@ -85,7 +94,6 @@ public class PedidoController {
                     })
                     .toList();
 
-            System.out.println("📦 Criando pedido...");
             Pedido pedidoCriado = pedidoService.create(
                     user.getId(),
                     UUID.fromString(createRequest.getFeiranteId()),
@@ -94,18 +102,25 @@ public class PedidoController {
                     createRequest.getObservacoes()
             );
             
-            System.out.println("✅ Pedido criado com sucesso: " + pedidoCriado.getId());
+            log.debug("Pedido {} criado: cliente={} feirante={} itens={}",
+                    pedidoCriado.getId(), user.getId(), createRequest.getFeiranteId(), itensDTO.size());
             
             return ResponseEntity.status(HttpStatus.CREATED).body(pedidoCriado);
+        } catch (PrecificacaoService.PrecoDivergenteException e) {
+            log.info(AmostragemTurboFilter.AMOSTRADO, "Cotação desatualizada: {} produto(s) com preço alterado",
+                    e.getDivergencias().size());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("divergencias", e.getDivergencias());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
         } catch (RuntimeException e) {
-            System.err.println("❌ Erro ao criar pedido (RuntimeException): " + e.getMessage());
-            e.printStackTrace();
+            log.info(AmostragemTurboFilter.AMOSTRADO, "Pedido rejeitado: {}", e.getMessage());
+            log.debug("Pilha do pedido rejeitado", e);
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao criar pedido");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         } catch (Exception e) {
-            System.err.println("❌ Erro ao criar pedido (Exception): " + e.getMessage());
-            e.printStackTrace();
+            log.error("Erro ao criar pedido", e);
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("error", "Erro ao criar pedido: " + (e.getMessage() != null ? e.getMessage() : "Erro desconhecido"));
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
@@ -116,35 +131,80 @@ public class PedidoController {
     public ResponseEntity<List<Pedido>> getAll(HttpServletRequest request) {
         try {
             User user = jwtUserExtractor.extractUser(request);
-            System.out.println("📋 Buscando pedidos para usuário: " + user.getId() + " tipo: " + user.getTipo());
-            
             List<Pedido> pedidos;
             if (user.getTipo().name().equals("FEIRANTE")) {
                 // Buscar pedidos do feirante
                 pedidos = pedidoRepository.findByFeiranteUserId(user.getId());
-                System.out.println("   Buscando pedidos do feirante. Encontrados: " + pedidos.size());
             } else {
                 // Buscar pedidos do cliente
                 pedidos = pedidoRepository.findByClienteId(user.getId());
-                System.out.println("   Buscando pedidos do cliente. Encontrados: " + pedidos.size());
-            }
-            
-            // Log dos pedidos encontrados
-            for (Pedido p : pedidos) {
-                System.out.println("   Pedido ID: " + p.getId() + 
-                                  ", Cliente ID: " + p.getCliente().getId() + 
-                                  ", Total: " + p.getTotal() + 
-                                  ", Itens: " + (p.getItens() != null ? p.getItens().size() : 0));
             }
+            // Uma linha por requisição (nunca por pedido), e só em DEBUG
+            log.debug(AmostragemTurboFilter.AMOSTRADO, "Pedidos listados: usuario={} tipo={} total={}",
+                    user.getId(), user.getTipo(), pedidos.size());
             
             return ResponseEntity.ok(pedidos);
         } catch (Exception e) {
-            System.err.println("❌ Erro ao buscar pedidos: " + e.getMessage());
-            e.printStackTrace();
+            log.info(AmostragemTurboFilter.AMOSTRADO, "Falha ao listar pedidos: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
     }
 
+    /**
+     * Exporta o histórico de pedidos do feirante (CSV ou NDJSON) em streaming.
+     * Período opcional: inicio/fim em yyyy-MM-dd (fim inclusivo).
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> export(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        User user;
+        try {
+            user = jwtUserExtractor.extractUser(request);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Erro de autenticação ou autorização");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        if (!user.getTipo().name().equals("FEIRANTE")) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Apenas feirantes podem exportar pedidos");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+
+        PedidoExportService.Formato formatoExport;
+        try {
+            formatoExport = PedidoExportService.Formato.valueOf(formato.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Formato inválido. Use csv ou ndjson");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+
+        LocalDate dataInicio = inicio != null ? inicio : LocalDate.of(2000, 1, 1);
+        LocalDate dataFim = fim != null ? fim : LocalDate.now();
+        if (dataFim.isBefore(dataInicio)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "fim deve ser igual ou posterior a inicio");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+
+        UUID userId = user.getId();
+        StreamingResponseBody corpo = saida -> pedidoExportService.exportar(
+                userId, dataInicio.atStartOfDay(), dataFim.plusDays(1).atStartOfDay(), formatoExport, saida);
+
+        boolean csv = formatoExport == PedidoExportService.Formato.CSV;
+        String arquivo = "pedidos-" + dataInicio + "-" + dataFim + (csv ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + "\"")
+                .body(corpo);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Pedido> getById(@PathVariable UUID id, HttpServletRequest request) {
         try {
@@ -205,10 +265,7 @@ public class PedidoController {
             
             try {
                 PedidoStatus status = PedidoStatus.valueOf(statusStr.toUpperCase());
-                pedido.setStatus(status);
-                pedidoRepository.save(pedido);
-                
-                return ResponseEntity.ok(pedido);
+                return ResponseEntity.ok(pedidoService.updateStatus(pedido, status));
             } catch (IllegalArgumentException e) {
                 Map<String, String> error = new HashMap<>();
                 error.put("error", "Status inválido");
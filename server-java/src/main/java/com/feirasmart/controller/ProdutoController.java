@@ -1,14 +1,22 @@
 package com.feirasmart.controller;
 
 import com.feirasmart.config.JwtUserExtractor;
+import com.feirasmart.config.RespostaJsonWriter;
 import com.feirasmart.model.Produto;
 import com.feirasmart.model.User;
+import com.feirasmart.service.CatalogoCacheService;
+import com.feirasmart.service.PrecoSnapshotService;
+import com.feirasmart.service.ProdutoImportService;
 import com.feirasmart.service.ProdutoService;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,18 +25,40 @@ import java.util.UUID;
 @RequestMapping("/api/produtos")
 @CrossOrigin(origins = "*")
 public class ProdutoController {
+    private static final Logger log = LoggerFactory.getLogger(ProdutoController.class);
+
     @Autowired
     private ProdutoService produtoService;
 
     @Autowired
     private JwtUserExtractor jwtUserExtractor;
 
+    @Autowired
+    private ProdutoImportService produtoImportService;
+
+    @Autowired
+    private PrecoSnapshotService precoSnapshotService;
+
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+
+    @Autowired
+    private RespostaJsonWriter respostaJsonWriter;
+
+    /**
+     * Catálogo servido do cache já serializado (e comprimido, se o cliente aceitar gzip)
+     */
     @GetMapping
-    public ResponseEntity<List<Produto>> getAll(
+    public ResponseEntity<byte[]> getAll(
             @RequestParam(required = false) UUID feirante_id,
             @RequestParam(required = false) UUID user_id,
-            @RequestParam(required = false) Boolean disponivel) {
-        return ResponseEntity.ok(produtoService.findAll(feirante_id, user_id, disponivel));
+            @RequestParam(required = false) Boolean disponivel,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(precoSnapshotService.getEtagCatalogo())) {
+            return null;
+        }
+        return respostaJsonWriter.responder(catalogoCacheService.obter(feirante_id, user_id, disponivel), acceptEncoding);
     }
 
     @GetMapping("/{id}")
@@ -45,14 +75,9 @@ public class ProdutoController {
             HttpServletRequest request,
             @RequestBody CreateProdutoRequest createRequest) {
         try {
-            System.out.println("📥 Recebendo requisição para criar produto");
-            System.out.println("   Dados recebidos: nome=" + createRequest.getNome() + ", preco=" + createRequest.getPreco());
-            
             User user = jwtUserExtractor.extractUser(request);
-            System.out.println("✅ Usuário extraído: " + user.getId() + " tipo: " + user.getTipo());
             
             if (!user.getTipo().name().equals("FEIRANTE")) {
-                System.err.println("❌ Usuário não é feirante: " + user.getTipo());
                 java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
                 errorResponse.put("error", "Apenas feirantes podem criar produtos");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
@@ -87,28 +112,98 @@ public class ProdutoController {
             produto.setEstoque(createRequest.getEstoque() != null ? createRequest.getEstoque() : 0);
             produto.setDisponivel(createRequest.getDisponivel() != null ? createRequest.getDisponivel() : true);
 
-            System.out.println("📦 Dados do produto preparados: nome=" + produto.getNome() + ", preco=" + produto.getPreco() + ", unidade=" + produto.getUnidade());
-            System.out.println("   user_id será: " + user.getId());
-            
             Produto produtoCriado = produtoService.create(user.getId(), produto);
-            System.out.println("✅ Produto criado com sucesso: " + produtoCriado.getId());
+            log.debug("Produto {} criado: usuario={} nome={} preco={}",
+                    produtoCriado.getId(), user.getId(), produtoCriado.getNome(), produtoCriado.getPreco());
             
             return ResponseEntity.status(HttpStatus.CREATED).body(produtoCriado);
         } catch (RuntimeException e) {
-            System.err.println("❌ Erro ao criar produto (RuntimeException): " + e.getMessage());
-            e.printStackTrace();
+            log.info("Produto rejeitado: {}", e.getMessage());
+            log.debug("Pilha do produto rejeitado", e);
             java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
             errorResponse.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao criar produto");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         } catch (Exception e) {
-            System.err.println("❌ Erro ao criar produto (Exception): " + e.getMessage());
-            e.printStackTrace();
+            log.error("Erro ao criar produto", e);
             java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
             errorResponse.put("error", "Erro ao criar produto: " + (e.getMessage() != null ? e.getMessage() : "Erro desconhecido"));
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkImport(
+            HttpServletRequest request,
+            @RequestParam(required = false) String formato) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+            if (!user.getTipo().name().equals("FEIRANTE")) {
+                java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+                errorResponse.put("error", "Apenas feirantes podem importar produtos");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            }
+
+            // Formato pelo parâmetro ou pelo Content-Type (text/csv ou application/x-ndjson)
+            String tipo = formato != null ? formato.toLowerCase()
+                    : request.getContentType() != null ? request.getContentType().toLowerCase() : "";
+            ProdutoImportService.Formato formatoImportacao;
+            if (tipo.contains("csv")) {
+                formatoImportacao = ProdutoImportService.Formato.CSV;
+            } else if (tipo.contains("ndjson") || tipo.contains("jsonl")) {
+                formatoImportacao = ProdutoImportService.Formato.NDJSON;
+            } else {
+                java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+                errorResponse.put("error", "Formato não suportado. Use text/csv ou application/x-ndjson");
+                return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(errorResponse);
+            }
+
+            // O corpo é consumido em streaming pelo serviço
+            ProdutoImportService.RelatorioImportacao relatorio =
+                    produtoImportService.importar(user.getId(), request.getInputStream(), formatoImportacao);
+            return ResponseEntity.ok(relatorio);
+        } catch (IllegalArgumentException e) {
+            java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (RuntimeException e) {
+            java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao importar produtos");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", "Erro ao importar produtos: " + (e.getMessage() != null ? e.getMessage() : "Erro desconhecido"));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @PatchMapping("/batch")
+    public ResponseEntity<?> batchUpdate(
+            HttpServletRequest request,
+            @RequestBody List<ProdutoService.AtualizacaoParcial> atualizacoes) {
+        try {
+            User user = jwtUserExtractor.extractUser(request);
+            if (!user.getTipo().name().equals("FEIRANTE")) {
+                java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+                errorResponse.put("error", "Apenas feirantes podem atualizar produtos");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            }
+
+            int atualizados = produtoService.updateEmLote(user.getId(), atualizacoes);
+
+            java.util.Map<String, Object> response = new java.util.HashMap<>();
+            response.put("atualizados", atualizados);
+            return ResponseEntity.ok()
+                    .eTag(precoSnapshotService.getEtagCatalogo())
+                    .body(response);
+        } catch (RuntimeException e) {
+            java.util.Map<String, String> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", e.getMessage() != null ? e.getMessage() : "Erro ao atualizar produtos");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Produto> update(
             @PathVariable UUID id,
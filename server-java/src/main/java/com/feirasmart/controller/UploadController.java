@@ -1,6 +1,8 @@
 package com.feirasmart.controller;
 
 import com.feirasmart.service.FileStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -15,6 +17,7 @@ import java.util.Map;
 @RequestMapping("/api/upload")
 @CrossOrigin(origins = "*")
 public class UploadController {
+    private static final Logger log = LoggerFactory.getLogger(UploadController.class);
 
     @Autowired
     private FileStorageService fileStorageService;
@@ -49,7 +52,7 @@ public class UploadController {
             error.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Erro ao gravar upload", e);
             Map<String, String> error = new HashMap<>();
             error.put("error", "Erro ao fazer upload da imagem: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
@@ -67,7 +70,7 @@ public class UploadController {
             return ResponseEntity.status(HttpStatus.OK).body(response);
 
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Erro ao excluir imagem {}", filePath, e);
             Map<String, String> error = new HashMap<>();
             error.put("error", "Erro ao excluir imagem: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
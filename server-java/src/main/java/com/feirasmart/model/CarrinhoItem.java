@@ -0,0 +1,110 @@
+package com.feirasmart.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "carrinho_itens", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"cliente_id", "produto_id", "feirante_id"})
+})
+public class CarrinhoItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cliente_id", nullable = false)
+    @JsonIgnore
+    private User cliente;
+
+    @ManyToOne
+    @JoinColumn(name = "produto_id", nullable = false)
+    @JsonIgnoreProperties({"feirante", "user", "createdAt", "updatedAt"})
+    private Produto produto;
+
+    // Barraca em que o produto foi escolhido (o catálogo é por user_id, então o mesmo
+    // produto pode aparecer em mais de uma barraca do feirante)
+    @ManyToOne
+    @JoinColumn(name = "feirante_id", nullable = false)
+    @JsonIgnoreProperties({"user", "createdAt", "updatedAt"})
+    private Feirante feirante;
+
+    @Column(nullable = false)
+    private Integer quantidade;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public User getCliente() {
+        return cliente;
+    }
+
+    public void setCliente(User cliente) {
+        this.cliente = cliente;
+    }
+
+    public Produto getProduto() {
+        return produto;
+    }
+
+    public void setProduto(Produto produto) {
+        this.produto = produto;
+    }
+
+    public Feirante getFeirante() {
+        return feirante;
+    }
+
+    public void setFeirante(Feirante feirante) {
+        this.feirante = feirante;
+    }
+
+    public Integer getQuantidade() {
+        return quantidade;
+    }
+
+    public void setQuantidade(Integer quantidade) {
+        this.quantidade = quantidade;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
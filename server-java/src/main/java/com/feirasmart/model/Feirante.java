@@ -33,10 +33,11 @@ public class Feirante {
     private String categoria;
     private String avatar;
 
-    @Column(precision = 2, scale = 1)
+    // Mantidos só pelo AvaliacaoService (UPDATE atômico); o JPA não sobrescreve
+    @Column(precision = 2, scale = 1, updatable = false)
     private BigDecimal avaliacao = BigDecimal.ZERO;
 
-    @Column(name = "num_avaliacoes")
+    @Column(name = "num_avaliacoes", updatable = false)
     private Integer numAvaliacoes = 0;
 
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -38,6 +38,9 @@ public class Produto {
     private String categoria;
     private String imagem;
 
+    // Código do produto no sistema do feirante (chave opcional da importação em lote)
+    private String sku;
+
     @Column(nullable = false)
     private Integer estoque = 0;
 
@@ -133,6 +136,14 @@ public class Produto {
         this.imagem = imagem;
     }
 
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
     public Integer getEstoque() {
         return estoque;
     }
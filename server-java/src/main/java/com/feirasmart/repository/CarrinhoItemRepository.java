@@ -0,0 +1,33 @@
+package com.feirasmart.repository;
+
+import com.feirasmart.model.CarrinhoItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CarrinhoItemRepository extends JpaRepository<CarrinhoItem, UUID> {
+
+    @Query("SELECT c FROM CarrinhoItem c " +
+           "JOIN FETCH c.produto p JOIN FETCH p.user LEFT JOIN FETCH p.feirante pf LEFT JOIN FETCH pf.feira LEFT JOIN FETCH pf.user " +
+           "JOIN FETCH c.feirante f JOIN FETCH f.feira JOIN FETCH f.user " +
+           "WHERE c.cliente.id = :clienteId ORDER BY c.createdAt")
+    List<CarrinhoItem> findByClienteId(@Param("clienteId") UUID clienteId);
+
+    @Query("SELECT c FROM CarrinhoItem c WHERE c.cliente.id = :clienteId AND c.produto.id = :produtoId AND c.feirante.id = :feiranteId")
+    Optional<CarrinhoItem> findItem(
+        @Param("clienteId") UUID clienteId,
+        @Param("produtoId") UUID produtoId,
+        @Param("feiranteId") UUID feiranteId
+    );
+
+    @Modifying
+    @Query("DELETE FROM CarrinhoItem c WHERE c.cliente.id = :clienteId")
+    int deleteByClienteId(@Param("clienteId") UUID clienteId);
+}
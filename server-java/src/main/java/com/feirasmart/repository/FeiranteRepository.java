@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +20,9 @@ public interface FeiranteRepository extends JpaRepository<Feirante, UUID> {
     
     @Query("SELECT f FROM Feirante f WHERE f.user.id = :userId")
     List<Feirante> findByUser(@Param("userId") UUID userId);
+    
+    @Query("SELECT f FROM Feirante f JOIN FETCH f.user JOIN FETCH f.feira WHERE f.id IN :ids")
+    List<Feirante> findAllByIdIn(@Param("ids") Collection<UUID> ids);
 }
 
 
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,9 +21,21 @@ public interface ProdutoRepository extends JpaRepository<Produto, UUID> {
     @Query("SELECT p FROM Produto p WHERE p.user.id = :userId AND (:disponivel IS NULL OR p.disponivel = :disponivel)")
     List<Produto> findByUserIdAndDisponivel(@Param("userId") UUID userId, @Param("disponivel") Boolean disponivel);
     
+    @Query("SELECT p.id AS id, p.nome AS nome, p.preco AS preco, p.estoque AS estoque, p.disponivel AS disponivel, " +
+           "p.feirante.id AS feiranteId, p.user.id AS userId FROM Produto p WHERE p.id IN :ids")
+    List<PrecoProjection> findPrecosByIdIn(@Param("ids") Collection<UUID> ids);
+    
     @Query("SELECT COUNT(p) FROM Produto p WHERE p.user.id = :userId AND p.disponivel = true")
     Long countProdutosAtivosByUserId(@Param("userId") UUID userId);
-}
-
-
 
+    // Colunas usadas na precificação de pedidos (sem carregar as associações do produto)
+    interface PrecoProjection {
+        UUID getId();
+        String getNome();
+        BigDecimal getPreco();
+        Integer getEstoque();
+        Boolean getDisponivel();
+        UUID getFeiranteId();
+        UUID getUserId();
+    }
+}
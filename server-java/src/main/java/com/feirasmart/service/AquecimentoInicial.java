@@ -0,0 +1,180 @@
+package com.feirasmart.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feirasmart.config.JwtUtil;
+import com.feirasmart.model.Feira;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Aquecimento na inicialização: carrega os rankings, o snapshot de cada feira
+ * e o catálogo dos feirantes mais vendidos, e exercita JWT e Jackson até o JIT
+ * compilar esses caminhos. Como é um ApplicationRunner, a prontidão fica
+ * fora de serviço até ele terminar; o que não couber em aquecimento.tempo-max-ms
+ * é cancelado e a aplicação sobe assim mesmo (o restante carrega sob demanda).
+ */
+@Component
+public class AquecimentoInicial implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(AquecimentoInicial.class);
+
+    @Autowired
+    private RankingVendasService rankingVendasService;
+
+    @Autowired
+    private FeiraService feiraService;
+
+    @Autowired
+    private FeiraSnapshotService feiraSnapshotService;
+
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${aquecimento.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${aquecimento.tempo-max-ms:30000}")
+    private long tempoMaxMs;
+
+    @Value("${aquecimento.threads:4}")
+    private int threads;
+
+    @Value("${aquecimento.max-feiras:200}")
+    private int maxFeiras;
+
+    @Value("${aquecimento.top-feirantes:10}")
+    private int topFeirantes;
+
+    @Value("${aquecimento.iteracoes-jwt:2000}")
+    private int iteracoesJwt;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        long inicio = System.currentTimeMillis();
+        long prazo = inicio + tempoMaxMs;
+
+        // Primeira carga dos rankings (a correção agendada só roda depois de um intervalo), numa
+        // thread própria: fora do prazo ela continua em segundo plano, sem ser interrompida
+        FutureTask<Void> rankings = new FutureTask<>(this::carregarRankings, null);
+        new CustomizableThreadFactory("ranking-carga-").newThread(rankings).start();
+        if (!habilitado) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("aquecimento-"));
+        try {
+            // Os catálogos aquecidos são os dos feirantes mais vendidos: espera os rankings, dentro do prazo
+            try {
+                rankings.get(Math.max(prazo - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                log.warn("Falha na carga inicial dos rankings: {}", e.getCause().toString());
+            } catch (TimeoutException e) {
+                log.warn("Aquecimento interrompido após {} ms: carga inicial dos rankings não terminou",
+                        System.currentTimeMillis() - inicio);
+                return;
+            }
+
+            List<Runnable> tarefas = new ArrayList<>();
+            List<Feira> feiras = feiraService.findAll();
+            tarefas.add(() -> serializar(feiras));
+            for (Feira feira : feiras.subList(0, Math.min(feiras.size(), maxFeiras))) {
+                UUID feiraId = feira.getId();
+                tarefas.add(() -> feiraSnapshotService.obter(feiraId));
+                // Mesma chave do catálogo público do feirante (feirante_id + disponivel=true)
+                for (RankingVendasService.ItemRanking feirante : rankingVendasService.topFeirantes(feiraId, topFeirantes)) {
+                    tarefas.add(() -> catalogoCacheService.obter(feirante.getId(), null, true));
+                }
+            }
+            // Compilação do JIT é por método: as iterações são divididas entre as threads
+            for (int i = 0; i < threads; i++) {
+                tarefas.add(() -> exercitarJwt(Math.max(iteracoesJwt / threads, 1)));
+            }
+
+            CompletionService<Void> conclusoes = new ExecutorCompletionService<>(executor);
+            for (Runnable tarefa : tarefas) {
+                conclusoes.submit(tarefa, null);
+            }
+
+            int total = tarefas.size();
+            int concluidas = 0;
+            int falhas = 0;
+            int proximoRelatorio = Math.max(total / 10, 1);
+            log.info("Aquecimento iniciado: {} tarefas em {} threads, até {} ms", total, threads, tempoMaxMs);
+            while (concluidas < total) {
+                long restante = prazo - System.currentTimeMillis();
+                Future<Void> feita = restante > 0 ? conclusoes.poll(restante, TimeUnit.MILLISECONDS) : null;
+                if (feita == null) {
+                    log.warn("Aquecimento interrompido após {} ms: {}/{} tarefas concluídas",
+                            System.currentTimeMillis() - inicio, concluidas, total);
+                    return;
+                }
+                concluidas++;
+                try {
+                    feita.get();
+                } catch (ExecutionException e) {
+                    falhas++;
+                    log.warn("Falha no aquecimento: {}", e.getCause().toString());
+                }
+                if (concluidas >= proximoRelatorio && concluidas < total) {
+                    log.info("Aquecimento: {}/{} tarefas concluídas", concluidas, total);
+                    proximoRelatorio += Math.max(total / 10, 1);
+                }
+            }
+            log.info("Aquecimento concluído em {} ms: {} tarefas, {} falhas",
+                    System.currentTimeMillis() - inicio, total, falhas);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Uma falha aqui não impede a subida: os rankings ficam vazios até a próxima correção agendada
+    private void carregarRankings() {
+        try {
+            rankingVendasService.corrigir();
+        } catch (RuntimeException e) {
+            log.warn("Falha na carga inicial dos rankings: {}", e.toString());
+        }
+    }
+
+    private void exercitarJwt(int iteracoes) {
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < iteracoes && !Thread.currentThread().isInterrupted(); i++) {
+            String token = jwtUtil.generateToken(userId, "aquecimento@feirasmart.local", "CLIENTE");
+            if (jwtUtil.validateToken(token)) {
+                jwtUtil.getUserIdFromToken(token);
+            }
+        }
+    }
+
+    private void serializar(Object valor) {
+        try {
+            objectMapper.writeValueAsBytes(valor);
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao serializar no aquecimento", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.feirasmart.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Metadados das imagens servidas em /uploads/feiras (caminho, tamanho, data,
+ * ETag e content type), por nome relativo a uploads/feiras. Imagens quentes
+ * são servidas sem stat nem detecção de content type a cada requisição: os
+ * arquivos não mudam de conteúdo (nome pelo hash, UUIDs antigos, variantes
+ * regravadas só depois de excluídas) e as entradas saem quando a imagem é
+ * excluída (ImagemUploadEvent). Arquivos apagados por fora da API são
+ * notados na revalidação (imagens.metadados.validade-ms).
+ */
+@Service
+public class ArquivosImagemService {
+    // {hash[0..2]}/{sha-256}.{ext}: o próprio hash serve de ETag forte
+    private static final Pattern NOME_POR_HASH = Pattern.compile("([0-9a-f]{2})/(\\1[0-9a-f]{62})\\.[a-z]+");
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${imagens.metadados.validade-ms:60000}")
+    private long validadeMs;
+
+    // Nomes vêm da URL: limita o número de entradas, despejando as menos pedidas
+    private final Cache<String, ArquivoImagem> entradas;
+
+    public ArquivosImagemService(@Value("${imagens.metadados.max-entradas:10000}") int maxEntradas) {
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .build();
+    }
+
+    /**
+     * Metadados do arquivo, ou null quando ele não existe (ausências não são
+     * guardadas: uma variante ainda não gerada aparece depois).
+     */
+    public ArquivoImagem buscar(String arquivo) throws IOException {
+        long agora = System.currentTimeMillis();
+        ArquivoImagem encontrado = entradas.getIfPresent(arquivo);
+        if (encontrado != null && agora - encontrado.verificado < validadeMs) {
+            return encontrado;
+        }
+
+        Path diretorio = fileStorageService.resolveUploadPath().resolve("feiras");
+        Path caminho = diretorio.resolve(arquivo).normalize();
+        if (!caminho.startsWith(diretorio)) {
+            return null;
+        }
+        BasicFileAttributes atributos;
+        try {
+            atributos = Files.readAttributes(caminho, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            entradas.invalidate(arquivo);
+            return null;
+        }
+        if (!atributos.isRegularFile()) {
+            entradas.invalidate(arquivo);
+            return null;
+        }
+
+        encontrado = new ArquivoImagem(arquivo, caminho, atributos.size(), atributos.lastModifiedTime().toMillis(),
+                etag(arquivo, atributos), MediaTypeFactory.getMediaType(arquivo).orElse(MediaType.APPLICATION_OCTET_STREAM), agora);
+        entradas.put(arquivo, encontrado);
+        return encontrado;
+    }
+
+    /**
+     * Remove a entrada de um arquivo que sumiu do disco por fora da API.
+     */
+    public void descartar(ArquivoImagem arquivo) {
+        entradas.invalidate(arquivo.getNome());
+    }
+
+    @EventListener
+    public void aoAlterarImagem(ImagemUploadEvent event) {
+        if (event.isExcluida()) {
+            entradas.asMap().keySet().removeIf(nome -> daImagem(nome, event.getArquivo()));
+        }
+    }
+
+    /**
+     * Se o nome é o da imagem ou o de uma das suas variantes
+     * (variantes/{arquivo sem extensão}-{largura}.jpg).
+     */
+    static boolean daImagem(String nome, String arquivo) {
+        if (nome.equals(arquivo)) {
+            return true;
+        }
+        int ponto = arquivo.lastIndexOf('.');
+        return nome.startsWith("variantes/" + (ponto > 0 ? arquivo.substring(0, ponto) : arquivo) + "-");
+    }
+
+    private static String etag(String arquivo, BasicFileAttributes atributos) {
+        Matcher nomePorHash = NOME_POR_HASH.matcher(arquivo);
+        if (nomePorHash.matches()) {
+            return "\"" + nomePorHash.group(2) + "\"";
+        }
+        return "\"" + Long.toHexString(atributos.lastModifiedTime().toMillis()) + "-" + Long.toHexString(atributos.size()) + "\"";
+    }
+
+    public static class ArquivoImagem {
+        private final String nome;
+        private final Path caminho;
+        private final long tamanho;
+        private final long modificado;
+        private final String etag;
+        private final MediaType contentType;
+        private final long verificado;
+
+        ArquivoImagem(String nome, Path caminho, long tamanho, long modificado, String etag, MediaType contentType, long verificado) {
+            this.nome = nome;
+            this.caminho = caminho;
+            this.tamanho = tamanho;
+            this.modificado = modificado;
+            this.etag = etag;
+            this.contentType = contentType;
+            this.verificado = verificado;
+        }
+
+        // Relativo a uploads/feiras
+        public String getNome() {
+            return nome;
+        }
+
+        public Path getCaminho() {
+            return caminho;
+        }
+
+        public long getTamanho() {
+            return tamanho;
+        }
+
+        public long getModificado() {
+            return modificado;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public MediaType getContentType() {
+            return contentType;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.feirasmart.service;
+
+import com.feirasmart.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Avaliações de feirantes. A média fica em feirantes.avaliacao e é mantida de
+ * forma incremental: soma_avaliacoes e num_avaliacoes são ajustados por um
+ * único UPDATE atômico a cada avaliação, sem reler as avaliações.
+ *
+ * O ranking de melhores avaliados de cada feira fica em memória, carregado na
+ * primeira leitura e atualizado a cada avaliação após o commit.
+ */
+@Service
+public class AvaliacaoService {
+    // Se o cliente já avaliou, troca a nota e devolve a anterior (linha travada até o commit)
+    private static final String SQL_ATUALIZAR_AVALIACAO =
+            "UPDATE avaliacoes a SET nota = :nota, comentario = :comentario, updated_at = now() " +
+            "FROM (SELECT id, nota FROM avaliacoes WHERE feirante_id = :feiranteId AND cliente_id = :clienteId " +
+            "FOR UPDATE) anterior " +
+            "WHERE a.id = anterior.id RETURNING anterior.nota";
+
+    private static final String SQL_INSERIR_AVALIACAO =
+            "INSERT INTO avaliacoes (feirante_id, cliente_id, nota, comentario) " +
+            "VALUES (:feiranteId, :clienteId, :nota, :comentario) " +
+            "ON CONFLICT (feirante_id, cliente_id) DO NOTHING RETURNING id";
+
+    // No SET as colunas referem-se aos valores antigos, então a média usa soma e contagem já ajustadas
+    private static final String SQL_ATUALIZAR_MEDIA =
+            "UPDATE feirantes SET " +
+            "soma_avaliacoes = soma_avaliacoes + :delta, " +
+            "num_avaliacoes = num_avaliacoes + :novas, " +
+            "avaliacao = ROUND(CAST(soma_avaliacoes + :delta AS NUMERIC) / NULLIF(num_avaliacoes + :novas, 0), 1), " +
+            "updated_at = now() " +
+            "WHERE id = :feiranteId " +
+            "RETURNING id, feira_id, nome_estande, avatar, categoria, avaliacao, num_avaliacoes";
+
+    private static final String SQL_RANKING_FEIRA =
+            "SELECT id, feira_id, nome_estande, avatar, categoria, avaliacao, num_avaliacoes FROM feirantes " +
+            "WHERE feira_id = :feiraId AND num_avaliacoes > 0";
+
+    private static final Comparator<FeiranteAvaliado> MELHORES = Comparator
+            .comparing(FeiranteAvaliado::getAvaliacao).reversed()
+            .thenComparing(Comparator.comparingInt(FeiranteAvaliado::getNumAvaliacoes).reversed())
+            .thenComparing(FeiranteAvaliado::getNomeEstande);
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FeiraSnapshotService feiraSnapshotService;
+
+    @Autowired
+    private PrecoSnapshotService precoSnapshotService;
+
+    // feira_id -> feirantes avaliados, já ordenados (listas imutáveis)
+    private final Map<UUID, List<FeiranteAvaliado>> rankings = new ConcurrentHashMap<>();
+
+    @Transactional
+    public FeiranteAvaliado avaliar(User cliente, UUID feiranteId, Integer nota, String comentario) {
+        if (!cliente.getTipo().name().equals("CLIENTE")) {
+            throw new RuntimeException("Apenas clientes podem avaliar feirantes");
+        }
+        if (nota == null || nota < 1 || nota > 5) {
+            throw new RuntimeException("A nota deve ser um número inteiro de 1 a 5");
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("feiranteId", feiranteId)
+                .addValue("clienteId", cliente.getId())
+                .addValue("nota", nota)
+                .addValue("comentario", comentario);
+
+        Integer notaAnterior = buscarNotaAnterior(params);
+        if (notaAnterior == null) {
+            List<UUID> inseridas;
+            try {
+                inseridas = jdbcTemplate.queryForList(SQL_INSERIR_AVALIACAO, params, UUID.class);
+            } catch (DataIntegrityViolationException e) {
+                throw new RuntimeException("Feirante não encontrado");
+            }
+            if (inseridas.isEmpty()) {
+                // Outra requisição do mesmo cliente inseriu antes: vira atualização
+                notaAnterior = buscarNotaAnterior(params);
+            }
+        }
+
+        params.addValue("delta", notaAnterior == null ? nota : nota - notaAnterior)
+                .addValue("novas", notaAnterior == null ? 1 : 0);
+
+        FeiranteAvaliado avaliado;
+        try {
+            avaliado = jdbcTemplate.queryForObject(SQL_ATUALIZAR_MEDIA, params, (rs, rowNum) -> new FeiranteAvaliado(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("feira_id", UUID.class),
+                    rs.getString("nome_estande"),
+                    rs.getString("avatar"),
+                    rs.getString("categoria"),
+                    rs.getBigDecimal("avaliacao"),
+                    rs.getInt("num_avaliacoes")));
+        } catch (EmptyResultDataAccessException e) {
+            throw new RuntimeException("Feirante não encontrado");
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                atualizarRanking(avaliado);
+            }
+        });
+        feiraSnapshotService.invalidarFeira(avaliado.getFeiraId());
+        // Média e número de avaliações vão embutidos em cada produto de GET /api/produtos
+        precoSnapshotService.invalidarCatalogo();
+
+        return avaliado;
+    }
+
+    private Integer buscarNotaAnterior(MapSqlParameterSource params) {
+        List<Integer> anteriores = jdbcTemplate.queryForList(SQL_ATUALIZAR_AVALIACAO, params, Integer.class);
+        return anteriores.isEmpty() ? null : anteriores.get(0);
+    }
+
+    /**
+     * Feirantes da feira com melhor média (empate: mais avaliações).
+     * Só consulta o banco na primeira leitura de cada feira.
+     */
+    public List<FeiranteAvaliado> melhoresAvaliados(UUID feiraId, int limite) {
+        List<FeiranteAvaliado> ranking = rankings.get(feiraId);
+        if (ranking == null) {
+            // Consulta fora do lock do mapa; em corrida, fica a primeira lista carregada
+            List<FeiranteAvaliado> carregado = carregarRanking(feiraId);
+            ranking = Objects.requireNonNullElse(rankings.putIfAbsent(feiraId, carregado), carregado);
+        }
+        return limite >= ranking.size() ? ranking : ranking.subList(0, Math.max(limite, 0));
+    }
+
+    /**
+     * Descarta o ranking da feira (ex.: feirante renomeado ou removido); é recarregado na próxima leitura
+     */
+    public void invalidar(UUID feiraId) {
+        rankings.remove(feiraId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rankings.remove(feiraId);
+                }
+            });
+        }
+    }
+
+    private List<FeiranteAvaliado> carregarRanking(UUID feiraId) {
+        return jdbcTemplate.query(SQL_RANKING_FEIRA, Map.of("feiraId", feiraId), (rs, rowNum) -> new FeiranteAvaliado(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("feira_id", UUID.class),
+                        rs.getString("nome_estande"),
+                        rs.getString("avatar"),
+                        rs.getString("categoria"),
+                        rs.getBigDecimal("avaliacao"),
+                        rs.getInt("num_avaliacoes")))
+                .stream()
+                .sorted(MELHORES)
+                .toList();
+    }
+
+    // Troca a entrada do feirante e reordena; só a feira afetada é tocada
+    private void atualizarRanking(FeiranteAvaliado avaliado) {
+        rankings.computeIfPresent(avaliado.getFeiraId(), (feiraId, ranking) -> {
+            List<FeiranteAvaliado> novo = new ArrayList<>(ranking.size() + 1);
+            for (FeiranteAvaliado f : ranking) {
+                if (!f.getId().equals(avaliado.getId())) {
+                    novo.add(f);
+                }
+            }
+            novo.add(avaliado);
+            novo.sort(MELHORES);
+            return List.copyOf(novo);
+        });
+    }
+
+    public static class FeiranteAvaliado {
+        private final UUID id;
+        private final UUID feiraId;
+        private final String nomeEstande;
+        private final String avatar;
+        private final String categoria;
+        private final BigDecimal avaliacao;
+        private final int numAvaliacoes;
+
+        public FeiranteAvaliado(UUID id, UUID feiraId, String nomeEstande, String avatar, String categoria,
+                                BigDecimal avaliacao, int numAvaliacoes) {
+            this.id = id;
+            this.feiraId = feiraId;
+            this.nomeEstande = nomeEstande;
+            this.avatar = avatar;
+            this.categoria = categoria;
+            this.avaliacao = avaliacao;
+            this.numAvaliacoes = numAvaliacoes;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public UUID getFeiraId() {
+            return feiraId;
+        }
+
+        public String getNomeEstande() {
+            return nomeEstande;
+        }
+
+        public String getAvatar() {
+            return avatar;
+        }
+
+        public String getCategoria() {
+            return categoria;
+        }
+
+        public BigDecimal getAvaliacao() {
+            return avaliacao;
+        }
+
+        public int getNumAvaliacoes() {
+            return numAvaliacoes;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.feirasmart.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Conteúdo das imagens pequenas mais pedidas (banners de feira, miniaturas)
+ * em ByteBuffers diretos, fora do heap, com orçamento total em bytes e
+ * despejo W-TinyLFU (Caffeine): um arquivo pedido uma vez não tira do cache
+ * os que são pedidos sempre. A chave leva o ETag, então um arquivo alterado
+ * nunca é servido com o conteúdo antigo; exclusões pela API
+ * (FileStorageService.deleteImage) removem a imagem e as variantes.
+ *
+ * A memória de um buffer despejado só volta quando o GC coleta o objeto:
+ * o teto real fica em -XX:MaxDirectMemorySize.
+ */
+@Service
+public class CacheImagensService {
+    private final MeterRegistry meterRegistry;
+    private final boolean habilitado;
+    private final long maxArquivo;
+    private final Cache<String, ByteBuffer> conteudos;
+
+    @Autowired
+    public CacheImagensService(MeterRegistry meterRegistry,
+                               @Value("${imagens.cache.habilitado:true}") boolean habilitado,
+                               @Value("${imagens.cache.max-bytes:64MB}") DataSize maxBytes,
+                               @Value("${imagens.cache.max-arquivo:512KB}") DataSize maxArquivo) {
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado;
+        this.maxArquivo = maxArquivo.toBytes();
+        this.conteudos = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .<String, ByteBuffer>weigher((chave, buffer) -> buffer.capacity())
+                .recordStats()
+                .build();
+
+        // cache_gets{result=hit|miss}, cache_evictions, cache_size...
+        CaffeineCacheMetrics.monitor(meterRegistry, conteudos, "imagens");
+        Gauge.builder("feirasmart.imagens.cache.acerto.razao", conteudos, cache -> cache.stats().hitRate())
+                .description("Fração dos pedidos ao cache de imagens atendidos da memória")
+                .register(meterRegistry);
+        Gauge.builder("feirasmart.imagens.cache.bytes", conteudos,
+                        cache -> cache.policy().eviction().map(despejo -> despejo.weightedSize().orElse(0)).orElse(0L))
+                .description("Bytes de imagens guardados no cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Conteúdo do arquivo (somente leitura, a partir da posição 0), lido do
+     * disco na primeira vez. Null com o cache desligado, para arquivos acima
+     * de imagens.cache.max-arquivo ou se o arquivo mudou durante a leitura.
+     */
+    public ByteBuffer buscar(ArquivosImagemService.ArquivoImagem arquivo) throws IOException {
+        if (!habilitado || arquivo.getTamanho() > maxArquivo) {
+            return null;
+        }
+        try {
+            ByteBuffer conteudo = conteudos.get(arquivo.getNome() + "|" + arquivo.getEtag(), chave -> ler(arquivo));
+            return conteudo != null ? conteudo.duplicate() : null;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Bytes de imagem entregues, por origem: memoria (este cache), sendfile
+     * ou canal (FileChannel.transferTo).
+     */
+    public void registrarEnvio(String origem, long bytes) {
+        Counter.builder("feirasmart.imagens.enviados")
+                .description("Bytes de imagem entregues por origem")
+                .baseUnit("bytes")
+                .tag("origem", origem)
+                .register(meterRegistry)
+                .increment(bytes);
+    }
+
+    @EventListener
+    public void aoAlterarImagem(ImagemUploadEvent event) {
+        if (event.isExcluida()) {
+            conteudos.asMap().keySet().removeIf(chave ->
+                    ArquivosImagemService.daImagem(chave.substring(0, chave.indexOf('|')), event.getArquivo()));
+        }
+    }
+
+    // Chamado dentro do Caffeine: leituras simultâneas do mesmo arquivo esperam a primeira
+    private static ByteBuffer ler(ArquivosImagemService.ArquivoImagem arquivo) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) arquivo.getTamanho());
+        try (FileChannel canal = FileChannel.open(arquivo.getCaminho(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (canal.read(buffer) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (buffer.hasRemaining()) {
+            // Menor que nos metadados: alterado por fora, não entra no cache
+            return null;
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+}
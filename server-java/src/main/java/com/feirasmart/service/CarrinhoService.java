@@ -0,0 +1,93 @@
+package com.feirasmart.service;
+
+import com.feirasmart.model.CarrinhoItem;
+import com.feirasmart.model.Feirante;
+import com.feirasmart.model.Produto;
+import com.feirasmart.model.User;
+import com.feirasmart.repository.CarrinhoItemRepository;
+import com.feirasmart.repository.FeiranteRepository;
+import com.feirasmart.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class CarrinhoService {
+    @Autowired
+    private CarrinhoItemRepository carrinhoItemRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private FeiranteRepository feiranteRepository;
+
+    public List<CarrinhoItem> listar(UUID clienteId) {
+        return carrinhoItemRepository.findByClienteId(clienteId);
+    }
+
+    @Transactional
+    public CarrinhoItem adicionar(User cliente, UUID produtoId, UUID feiranteId, Integer quantidade) {
+        if (quantidade == null || quantidade <= 0) {
+            throw new RuntimeException("Quantidade deve ser maior que zero");
+        }
+
+        Produto produto = produtoRepository.findById(produtoId)
+                .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + produtoId));
+        Feirante feirante = feiranteRepository.findById(feiranteId)
+                .orElseThrow(() -> new RuntimeException("Feirante não encontrado"));
+
+        if (!CheckoutService.produtoPertenceAoFeirante(produto, feirante)) {
+            throw new RuntimeException("Produto não pertence ao feirante");
+        }
+
+        // Mesmo produto na mesma barraca: somar quantidades em vez de duplicar a linha
+        CarrinhoItem item = carrinhoItemRepository.findItem(cliente.getId(), produtoId, feiranteId)
+                .orElseGet(() -> {
+                    CarrinhoItem novo = new CarrinhoItem();
+                    novo.setCliente(cliente);
+                    novo.setProduto(produto);
+                    novo.setFeirante(feirante);
+                    novo.setQuantidade(0);
+                    return novo;
+                });
+        item.setQuantidade(item.getQuantidade() + quantidade);
+
+        return carrinhoItemRepository.save(item);
+    }
+
+    @Transactional
+    public CarrinhoItem atualizarQuantidade(UUID clienteId, UUID itemId, Integer quantidade) {
+        CarrinhoItem item = findDoCliente(clienteId, itemId);
+
+        if (quantidade == null || quantidade <= 0) {
+            carrinhoItemRepository.delete(item);
+            return null;
+        }
+
+        item.setQuantidade(quantidade);
+        return carrinhoItemRepository.save(item);
+    }
+
+    @Transactional
+    public void remover(UUID clienteId, UUID itemId) {
+        carrinhoItemRepository.delete(findDoCliente(clienteId, itemId));
+    }
+
+    @Transactional
+    public void limpar(UUID clienteId) {
+        carrinhoItemRepository.deleteByClienteId(clienteId);
+    }
+
+    private CarrinhoItem findDoCliente(UUID clienteId, UUID itemId) {
+        CarrinhoItem item = carrinhoItemRepository.findById(itemId)
+                .orElseThrow(() -> new RuntimeException("Item do carrinho não encontrado"));
+        if (!item.getCliente().getId().equals(clienteId)) {
+            throw new RuntimeException("Item do carrinho não encontrado");
+        }
+        return item;
+    }
+}
@@ -0,0 +1,66 @@
+package com.feirasmart.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feirasmart.model.Produto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Listagens do catálogo (GET /api/produtos) guardadas já serializadas e
+ * comprimidas, por combinação de filtros. Cada entrada carrega o ETag do
+ * catálogo lido antes da consulta e só é servida enquanto ele não mudar:
+ * qualquer alteração de produto ou feirante invalida todas de uma vez.
+ */
+@Service
+public class CatalogoCacheService {
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private PrecoSnapshotService precoSnapshotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${produtos.catalogo.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    // Filtros são livres (ids na query string): limita o número de entradas, despejando as menos pedidas
+    private final Cache<String, CorpoJson> entradas;
+
+    public CatalogoCacheService(@Value("${produtos.catalogo.cache.max-entradas:500}") int maxEntradas) {
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .build();
+    }
+
+    public CorpoJson obter(UUID feiranteId, UUID userId, Boolean disponivel) {
+        // ETag lido antes da consulta: uma alteração concorrente deixa a entrada já vencida
+        String etag = precoSnapshotService.getEtagCatalogo();
+        String chave = feiranteId + "|" + userId + "|" + disponivel;
+
+        CorpoJson corpo = entradas.getIfPresent(chave);
+        if (corpo != null && corpo.getEtag().equals(etag)) {
+            return corpo;
+        }
+
+        List<Produto> produtos = produtoService.findAll(feiranteId, userId, disponivel);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(produtos);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar catálogo de produtos", e);
+        }
+
+        corpo = CorpoJson.de(json, etag, gzipMinBytes);
+        entradas.put(chave, corpo);
+        return corpo;
+    }
+}
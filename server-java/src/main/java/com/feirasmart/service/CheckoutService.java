@@ -0,0 +1,224 @@
+package com.feirasmart.service;
+
+import com.feirasmart.model.*;
+import com.feirasmart.repository.CarrinhoItemRepository;
+import com.feirasmart.repository.FeiranteRepository;
+import com.feirasmart.repository.PedidoRepository;
+import com.feirasmart.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CheckoutService {
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private FeiranteRepository feiranteRepository;
+
+    @Autowired
+    private CarrinhoItemRepository carrinhoItemRepository;
+
+    @Autowired
+    private PrecificacaoService precificacaoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Finaliza a compra do carrinho do cliente, gerando um pedido por feirante.
+     * Se itensDTO vier vazio, usa o carrinho salvo no servidor e o esvazia ao final.
+     * Preços vêm do snapshot (PrecificacaoService), feirantes são validados com uma
+     * consulta só, e todos os pedidos e itens são gravados na mesma transação
+     * (inserts em lote).
+     */
+    @Transactional
+    public List<Pedido> checkout(User cliente, List<ItemCheckoutDTO> itensDTO, Map<UUID, String> observacoes) {
+        if (!cliente.getTipo().name().equals("CLIENTE")) {
+            throw new RuntimeException("Usuário não é um cliente");
+        }
+
+        boolean usarCarrinho = itensDTO == null || itensDTO.isEmpty();
+        if (usarCarrinho) {
+            itensDTO = carrinhoItemRepository.findByClienteId(cliente.getId()).stream()
+                    .map(ItemCheckoutDTO::fromCarrinho)
+                    .toList();
+        }
+
+        if (itensDTO.isEmpty()) {
+            throw new RuntimeException("Carrinho vazio");
+        }
+
+        // Agrupar por feirante e somar quantidades repetidas do mesmo produto
+        Map<UUID, Map<UUID, ItemCheckoutDTO>> itensPorFeirante = new LinkedHashMap<>();
+        for (ItemCheckoutDTO itemDTO : itensDTO) {
+            if (itemDTO.getProdutoId() == null || itemDTO.getFeiranteId() == null) {
+                throw new RuntimeException("Cada item deve informar produto_id e feirante_id");
+            }
+            if (itemDTO.getQuantidade() == null || itemDTO.getQuantidade() <= 0) {
+                throw new RuntimeException("Quantidade inválida para o produto: " + itemDTO.getProdutoId());
+            }
+            itensPorFeirante
+                    .computeIfAbsent(itemDTO.getFeiranteId(), id -> new LinkedHashMap<>())
+                    .merge(itemDTO.getProdutoId(), itemDTO, ItemCheckoutDTO::somar);
+        }
+
+        Map<UUID, Feirante> feirantes = feiranteRepository.findAllByIdIn(itensPorFeirante.keySet()).stream()
+                .collect(Collectors.toMap(Feirante::getId, Function.identity()));
+
+        // Uma cotação para o carrinho inteiro: os preços saem do snapshot, carregado em lote
+        PrecificacaoService.Cotacao cotacao = precificacaoService.cotar(itensPorFeirante.values().stream()
+                .flatMap(itens -> itens.values().stream())
+                .map(item -> new PrecificacaoService.ItemSolicitado(
+                        item.getProdutoId(), item.getQuantidade(), item.getPreco()))
+                .toList());
+        Iterator<PrecificacaoService.ItemCotado> itensCotados = cotacao.getItens().iterator();
+
+        List<Pedido> pedidos = new ArrayList<>(itensPorFeirante.size());
+        for (Map.Entry<UUID, Map<UUID, ItemCheckoutDTO>> grupo : itensPorFeirante.entrySet()) {
+            Feirante feirante = feirantes.get(grupo.getKey());
+            if (feirante == null) {
+                throw new RuntimeException("Feirante não encontrado: " + grupo.getKey());
+            }
+
+            Pedido pedido = new Pedido();
+            pedido.setCliente(cliente);
+            pedido.setFeirante(feirante);
+            pedido.setFeira(feirante.getFeira());
+            pedido.setStatus(PedidoStatus.PENDENTE);
+            pedido.setObservacoes(observacoes != null ? observacoes.get(feirante.getId()) : null);
+
+            List<PedidoItem> itens = new ArrayList<>(grupo.getValue().size());
+            BigDecimal total = BigDecimal.ZERO;
+
+            // A cotação preserva a ordem dos itens solicitados, grupo a grupo
+            for (int i = 0; i < grupo.getValue().size(); i++) {
+                PrecificacaoService.ItemCotado itemCotado = itensCotados.next();
+                PrecoSnapshotService.PrecoSnapshot produto = itemCotado.getProduto();
+
+                if (!produtoPertenceAoFeirante(produto, feirante)) {
+                    throw new RuntimeException("Produto não pertence ao feirante: " + produto.getNome());
+                }
+                if (!Boolean.TRUE.equals(produto.getDisponivel())) {
+                    throw new RuntimeException("Produto indisponível: " + produto.getNome());
+                }
+                if (produto.getEstoque() < itemCotado.getQuantidade()) {
+                    throw new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
+                }
+
+                PedidoItem item = new PedidoItem();
+                item.setPedido(pedido);
+                item.setProduto(produtoRepository.getReferenceById(produto.getProdutoId()));
+                item.setNomeProduto(produto.getNome());
+                item.setQuantidade(itemCotado.getQuantidade());
+                item.setPreco(produto.getPreco());
+                itens.add(item);
+
+                total = total.add(itemCotado.getSubtotal());
+            }
+
+            pedido.setItens(itens);
+            pedido.setTotal(total.setScale(2, RoundingMode.HALF_EVEN));
+            pedidos.add(pedido);
+        }
+
+        // Um único flush: com hibernate.jdbc.batch_size os inserts de pedidos e itens vão em lote
+        List<Pedido> salvos = pedidoRepository.saveAll(pedidos);
+
+        if (usarCarrinho) {
+            carrinhoItemRepository.deleteByClienteId(cliente.getId());
+        }
+
+        eventPublisher.publishEvent(PedidoVendaEvent.criados(salvos));
+
+        return salvos;
+    }
+
+    /**
+     * Verifica se o produto pertence ao feirante, diretamente ou pelo user do feirante
+     */
+    static boolean produtoPertenceAoFeirante(Produto produto, Feirante feirante) {
+        if (produto.getFeirante() != null && produto.getFeirante().getId().equals(feirante.getId())) {
+            return true;
+        }
+        return produto.getUser() != null && feirante.getUser() != null
+                && produto.getUser().getId().equals(feirante.getUser().getId());
+    }
+
+    private static boolean produtoPertenceAoFeirante(PrecoSnapshotService.PrecoSnapshot produto, Feirante feirante) {
+        if (produto.getFeiranteId() != null && produto.getFeiranteId().equals(feirante.getId())) {
+            return true;
+        }
+        return produto.getUserId() != null && feirante.getUser() != null
+                && produto.getUserId().equals(feirante.getUser().getId());
+    }
+
+    // DTO interno para os itens do checkout
+    public static class ItemCheckoutDTO {
+        private UUID produtoId;
+        private UUID feiranteId;
+        private Integer quantidade;
+        private BigDecimal preco;
+
+        static ItemCheckoutDTO fromCarrinho(CarrinhoItem carrinhoItem) {
+            ItemCheckoutDTO dto = new ItemCheckoutDTO();
+            dto.setProdutoId(carrinhoItem.getProduto().getId());
+            dto.setFeiranteId(carrinhoItem.getFeirante().getId());
+            dto.setQuantidade(carrinhoItem.getQuantidade());
+            return dto;
+        }
+
+        // Mesmo produto repetido na mesma barraca: vale a soma das quantidades
+        static ItemCheckoutDTO somar(ItemCheckoutDTO a, ItemCheckoutDTO b) {
+            ItemCheckoutDTO dto = new ItemCheckoutDTO();
+            dto.setProdutoId(a.getProdutoId());
+            dto.setFeiranteId(a.getFeiranteId());
+            dto.setQuantidade(a.getQuantidade() + b.getQuantidade());
+            dto.setPreco(a.getPreco() != null ? a.getPreco() : b.getPreco());
+            return dto;
+        }
+
+        public UUID getProdutoId() {
+            return produtoId;
+        }
+
+        public void setProdutoId(UUID produtoId) {
+            this.produtoId = produtoId;
+        }
+
+        public UUID getFeiranteId() {
+            return feiranteId;
+        }
+
+        public void setFeiranteId(UUID feiranteId) {
+            this.feiranteId = feiranteId;
+        }
+
+        public Integer getQuantidade() {
+            return quantidade;
+        }
+
+        public void setQuantidade(Integer quantidade) {
+            this.quantidade = quantidade;
+        }
+
+        public BigDecimal getPreco() {
+            return preco;
+        }
+
+        public void setPreco(BigDecimal preco) {
+            this.preco = preco;
+        }
+    }
+}
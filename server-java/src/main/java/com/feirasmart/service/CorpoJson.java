@@ -0,0 +1,61 @@
+package com.feirasmart.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Resposta JSON já serializada, guardada em cache junto com a versão gzip,
+ * para que leituras repetidas não paguem serialização nem compressão.
+ */
+public class CorpoJson {
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+
+    private CorpoJson(byte[] json, byte[] gzip, String etag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = etag;
+    }
+
+    /**
+     * Comprime o corpo se ele tiver pelo menos gzipMinBytes e a compressão de fato reduzir o tamanho
+     */
+    public static CorpoJson de(byte[] json, String etag, int gzipMinBytes) {
+        byte[] gzip = null;
+        if (json.length >= gzipMinBytes) {
+            byte[] comprimido = gzip(json);
+            if (comprimido.length < json.length) {
+                gzip = comprimido;
+            }
+        }
+        return new CorpoJson(json, gzip, etag);
+    }
+
+    private static byte[] gzip(byte[] dados) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(dados.length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Corpo comprimido com gzip, ou null se não compensar comprimir
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
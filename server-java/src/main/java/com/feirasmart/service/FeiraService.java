@@ -14,6 +14,9 @@ public class FeiraService {
     @Autowired
     private FeiraRepository feiraRepository;
 
+    @Autowired
+    private FeiraSnapshotService feiraSnapshotService;
+
     public List<Feira> findAll() {
         return feiraRepository.findAll();
     }
@@ -38,6 +41,7 @@ public class FeiraService {
         if (feiraData.getHoraInicio() != null) feira.setHoraInicio(feiraData.getHoraInicio());
         if (feiraData.getHoraFim() != null) feira.setHoraFim(feiraData.getHoraFim());
         if (feiraData.getImagem() != null) feira.setImagem(feiraData.getImagem());
+        feiraSnapshotService.invalidarFeira(id);
         return feiraRepository.save(feira);
     }
 
@@ -47,6 +51,7 @@ public class FeiraService {
             throw new RuntimeException("Feira não encontrada");
         }
         feiraRepository.deleteById(id);
+        feiraSnapshotService.invalidarFeira(id);
     }
 }
 
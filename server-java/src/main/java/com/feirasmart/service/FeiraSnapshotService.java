@@ -0,0 +1,204 @@
+package com.feirasmart.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feirasmart.model.Feira;
+import com.feirasmart.repository.FeiraRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Página da feira num único payload: a feira, seus feirantes e os produtos
+ * disponíveis de cada um. Montado com três consultas e guardado já
+ * serializado (e, acima do limite, também comprimido com gzip) até uma
+ * alteração de feira, feirante, avaliação ou produto invalidar a entrada.
+ */
+@Service
+public class FeiraSnapshotService {
+    private static final String SQL_FEIRANTES =
+            "SELECT f.id, f.user_id, u.nome AS nome_usuario, f.nome_estande, f.descricao, f.categoria, f.avatar, " +
+            "f.avaliacao, f.num_avaliacoes " +
+            "FROM feirantes f JOIN profiles u ON u.id = f.user_id " +
+            "WHERE f.feira_id = :feiraId ORDER BY f.nome_estande";
+
+    // Produtos pertencem ao user do feirante (mesmo catálogo em todas as feiras dele)
+    private static final String SQL_PRODUTOS =
+            "SELECT f.id AS feirante_id, p.id, p.nome, p.descricao, p.preco, p.unidade, p.categoria, p.imagem, " +
+            "p.sku, p.estoque, p.disponivel " +
+            "FROM produtos p JOIN feirantes f ON f.user_id = p.user_id " +
+            "WHERE f.feira_id = :feiraId AND p.disponivel = true " +
+            "ORDER BY f.id, p.nome";
+
+    @Autowired
+    private FeiraRepository feiraRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${feiras.snapshot.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    private final Map<UUID, SnapshotFeira> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong versao = new AtomicLong();
+
+    public SnapshotFeira obter(UUID feiraId) {
+        SnapshotFeira snapshot = snapshots.get(feiraId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        long versaoLeitura = versao.get();
+        snapshot = montar(feiraId);
+        // Uma invalidação durante a montagem pode ter deixado os dados velhos: não guarda
+        if (versao.get() == versaoLeitura) {
+            snapshots.put(feiraId, snapshot);
+            if (versao.get() != versaoLeitura) {
+                snapshots.remove(feiraId, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    private SnapshotFeira montar(UUID feiraId) {
+        // Feira, feirantes e produtos lidos no mesmo snapshot: um feirante criado entre as
+        // consultas não aparece só na de produtos
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        leitura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        Map<UUID, Map<String, Object>> feirantes = new LinkedHashMap<>();
+        Set<UUID> userIds = new HashSet<>();
+        Feira feira = leitura.execute(status -> consultar(feiraId, feirantes, userIds));
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("feira", feira);
+        payload.put("feirantes", feirantes.values());
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar snapshot da feira", e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(json);
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + json.length + "\"";
+
+        return new SnapshotFeira(CorpoJson.de(json, etag, gzipMinBytes), userIds);
+    }
+
+    private Feira consultar(UUID feiraId, Map<UUID, Map<String, Object>> feirantes, Set<UUID> userIds) {
+        Feira feira = feiraRepository.findById(feiraId)
+                .orElseThrow(FeiraNaoEncontradaException::new);
+
+        jdbcTemplate.query(SQL_FEIRANTES, Map.of("feiraId", feiraId), rs -> {
+            Map<String, Object> feirante = new LinkedHashMap<>();
+            UUID id = rs.getObject("id", UUID.class);
+            UUID userId = rs.getObject("user_id", UUID.class);
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("id", userId);
+            user.put("nome", rs.getString("nome_usuario"));
+            feirante.put("id", id);
+            feirante.put("user", user);
+            feirante.put("nomeEstande", rs.getString("nome_estande"));
+            feirante.put("descricao", rs.getString("descricao"));
+            feirante.put("categoria", rs.getString("categoria"));
+            feirante.put("avatar", rs.getString("avatar"));
+            feirante.put("avaliacao", rs.getBigDecimal("avaliacao"));
+            feirante.put("numAvaliacoes", rs.getInt("num_avaliacoes"));
+            feirante.put("produtos", new ArrayList<Map<String, Object>>());
+            feirantes.put(id, feirante);
+            userIds.add(userId);
+        });
+
+        jdbcTemplate.query(SQL_PRODUTOS, Map.of("feiraId", feiraId), rs -> {
+            Map<String, Object> produto = new LinkedHashMap<>();
+            produto.put("id", rs.getObject("id", UUID.class));
+            produto.put("nome", rs.getString("nome"));
+            produto.put("descricao", rs.getString("descricao"));
+            produto.put("preco", rs.getBigDecimal("preco"));
+            produto.put("unidade", rs.getString("unidade"));
+            produto.put("categoria", rs.getString("categoria"));
+            produto.put("imagem", rs.getString("imagem"));
+            produto.put("sku", rs.getString("sku"));
+            produto.put("estoque", rs.getInt("estoque"));
+            produto.put("disponivel", rs.getBoolean("disponivel"));
+            Map<String, Object> feirante = feirantes.get(rs.getObject("feirante_id", UUID.class));
+            if (feirante == null) {
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> produtos = (List<Map<String, Object>>) feirante.get("produtos");
+            produtos.add(produto);
+        });
+        return feira;
+    }
+
+    /**
+     * Invalida o snapshot da feira (alteração da feira, de um feirante ou de uma avaliação)
+     */
+    public void invalidarFeira(UUID feiraId) {
+        aposCommitTambem(() -> snapshots.remove(feiraId));
+    }
+
+    /**
+     * Invalida os snapshots das feiras onde o usuário tem barraca (alteração de produtos)
+     */
+    public void invalidarUsuario(UUID userId) {
+        aposCommitTambem(() -> snapshots.values().removeIf(s -> s.userIds.contains(userId)));
+    }
+
+    // Remove agora e de novo após o commit, para não guardar um snapshot montado antes dele
+    private void aposCommitTambem(Runnable remocao) {
+        versao.incrementAndGet();
+        remocao.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versao.incrementAndGet();
+                    remocao.run();
+                }
+            });
+        }
+    }
+
+    public static class SnapshotFeira {
+        private final CorpoJson corpo;
+        private final Set<UUID> userIds;
+
+        SnapshotFeira(CorpoJson corpo, Set<UUID> userIds) {
+            this.corpo = corpo;
+            this.userIds = userIds;
+        }
+
+        public CorpoJson getCorpo() {
+            return corpo;
+        }
+    }
+
+    // Única falha de obter() que vira 404; as demais seguem para o GlobalExceptionHandler
+    public static class FeiraNaoEncontradaException extends RuntimeException {
+        public FeiraNaoEncontradaException() {
+            super("Feira não encontrada");
+        }
+    }
+}
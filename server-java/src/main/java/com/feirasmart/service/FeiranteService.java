@@ -24,6 +24,15 @@ public class FeiranteService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrecoSnapshotService precoSnapshotService;
+
+    @Autowired
+    private AvaliacaoService avaliacaoService;
+
+    @Autowired
+    private FeiraSnapshotService feiraSnapshotService;
+
     public List<Feirante> findAll(UUID feiraId, UUID userId) {
         if (feiraId != null) {
             return feiranteRepository.findByFeiraId(feiraId);
@@ -59,6 +68,7 @@ public class FeiranteService {
         feirante.setCategoria(categoria);
         feirante.setAvatar(avatar);
 
+        feiraSnapshotService.invalidarFeira(feiraId);
         return feiranteRepository.save(feirante);
     }
 
@@ -75,6 +85,10 @@ public class FeiranteService {
         if (categoria != null) feirante.setCategoria(categoria);
         if (avatar != null) feirante.setAvatar(avatar);
 
+        // Os dados do feirante aparecem embutidos na listagem de produtos e no ranking de avaliações
+        precoSnapshotService.invalidarTudo();
+        avaliacaoService.invalidar(feirante.getFeira().getId());
+        feiraSnapshotService.invalidarFeira(feirante.getFeira().getId());
         return feiranteRepository.save(feirante);
     }
 
@@ -87,6 +101,10 @@ public class FeiranteService {
         }
 
         feiranteRepository.delete(feirante);
+        // Produtos do feirante são removidos em cascata pelo banco
+        precoSnapshotService.invalidarTudo();
+        avaliacaoService.invalidar(feirante.getFeira().getId());
+        feiraSnapshotService.invalidarFeira(feirante.getFeira().getId());
     }
 }
 
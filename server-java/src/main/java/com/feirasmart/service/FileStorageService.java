@@ -1,20 +1,41 @@
 package com.feirasmart.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class FileStorageService {
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
 
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
@@ -22,12 +43,46 @@ public class FileStorageService {
     @Value("${file.upload-max-size:5242880}")
     private long maxFileSize; // 5MB default
 
+    @Value("${file.exclusao.carencia-ms:600000}")
+    private long carenciaExclusaoMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
     private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif", "webp");
 
+    // Temporários nascem com 0600; o arquivo final fica legível como os demais uploads
+    private static final Set<PosixFilePermission> PERMISSOES_ARQUIVO = PosixFilePermissions.fromString("rw-r--r--");
+
+    private static final String SQL_IMAGEM_EM_USO =
+            "SELECT EXISTS (SELECT 1 FROM feiras WHERE imagem LIKE :caminho) " +
+            "OR EXISTS (SELECT 1 FROM produtos WHERE imagem LIKE :caminho) " +
+            "OR EXISTS (SELECT 1 FROM feirantes WHERE avatar LIKE :caminho) " +
+            "OR EXISTS (SELECT 1 FROM profiles WHERE avatar LIKE :caminho)";
+
+    // Upload e exclusão do mesmo arquivo serializados por trava (escolhida pelo caminho)
+    private final Object[] travas = new Object[64];
+
+    // Último upload de cada arquivo (gravado ou duplicado) e exclusões adiadas por causa dele
+    private final Map<String, Long> enviados = new ConcurrentHashMap<>();
+    private final Set<String> exclusoesAdiadas = ConcurrentHashMap.newKeySet();
+
+    public FileStorageService() {
+        for (int i = 0; i < travas.length; i++) {
+            travas[i] = new Object();
+        }
+    }
+
     /**
      * Resolve o caminho absoluto do diretório de uploads
      */
-    private Path resolveUploadPath() {
+    public Path resolveUploadPath() {
         Path uploadPath;
         if (Paths.get(uploadDir).isAbsolute()) {
             uploadPath = Paths.get(uploadDir);
@@ -69,47 +124,156 @@ public class FileStorageService {
         // Criar diretório se não existir
         if (!Files.exists(uploadPath)) {
             Files.createDirectories(uploadPath);
-            System.out.println("📁 Diretório de upload criado: " + uploadPath);
+            log.info("Diretório de upload criado: {}", uploadPath);
         }
 
         // Criar diretório para imagens de feiras
         Path feiraImagesPath = uploadPath.resolve("feiras");
         if (!Files.exists(feiraImagesPath)) {
             Files.createDirectories(feiraImagesPath);
-            System.out.println("📁 Diretório de feiras criado: " + feiraImagesPath);
+            log.info("Diretório de feiras criado: {}", feiraImagesPath);
         }
 
-        // Gerar nome único para o arquivo
-        String fileName = UUID.randomUUID().toString() + "." + extension;
-        Path filePath = feiraImagesPath.resolve(fileName);
+        // Nome pelo conteúdo: {hash[0..2]}/{sha-256}.{extensão}. O hash é calculado enquanto
+        // o arquivo é gravado num temporário, movido de uma vez para o nome final;
+        // conteúdo já existente não é gravado de novo
+        long inicio = System.nanoTime();
+        MessageDigest sha256 = novoSha256();
+        Path temporario = Files.createTempFile(feiraImagesPath, "upload-", ".tmp");
+        String fileName;
+        long bytes;
+        boolean duplicado;
+        try {
+            try (InputStream entrada = new DigestInputStream(file.getInputStream(), sha256)) {
+                bytes = Files.copy(entrada, temporario, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            fileName = hash.substring(0, 2) + "/" + hash + "." + ("jpeg".equals(extension) ? "jpg" : extension);
+            Path filePath = feiraImagesPath.resolve(fileName);
 
-        // Salvar arquivo
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        System.out.println("✅ Arquivo salvo: " + filePath);
-        System.out.println("   URL de acesso: /uploads/feiras/" + fileName);
+            // Sob a trava do arquivo: uma exclusão não apaga o conteúdo existente entre a checagem e o retorno
+            String caminho = "/uploads/feiras/" + fileName;
+            synchronized (trava(caminho)) {
+                duplicado = Files.exists(filePath);
+                if (!duplicado) {
+                    Files.createDirectories(filePath.getParent());
+                    Files.setPosixFilePermissions(temporario, PERMISSOES_ARQUIVO);
+                    // Uploads simultâneos do mesmo conteúdo gravam bytes idênticos: substituir é seguro
+                    Files.move(temporario, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+                enviados.put(caminho, System.currentTimeMillis());
+            }
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+
+        Timer.builder("feirasmart.upload.gravacao")
+                .description("Tempo de gravação de uploads em disco")
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("feirasmart.upload.bytes")
+                .description("Tamanho dos uploads gravados")
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(bytes);
+        Counter.builder("feirasmart.upload.arquivos")
+                .description("Uploads por resultado: gravado ou duplicado (conteúdo já existente)")
+                .tag("resultado", duplicado ? "duplicado" : "gravado")
+                .register(meterRegistry)
+                .increment();
+
+        log.debug("Upload {}: {} ({} bytes)", duplicado ? "duplicado" : "gravado", fileName, bytes);
+        if (!duplicado) {
+            // Variantes redimensionadas (VariantesImagemService), geradas em segundo plano
+            eventPublisher.publishEvent(ImagemUploadEvent.gravada(fileName));
+        }
 
         // Retornar caminho relativo para acesso via URL
         return "/uploads/feiras/" + fileName;
     }
 
     /**
-     * Exclui um arquivo de imagem
+     * Exclui um arquivo de imagem. Com nomes pelo conteúdo o mesmo arquivo pode
+     * estar em várias feiras, produtos ou perfis: só é apagado quando nenhum
+     * registro o referencia mais. O caminho devolvido por um upload só é gravado
+     * no registro na requisição seguinte: arquivo enviado há menos de
+     * file.exclusao.carencia-ms tem a exclusão adiada e conferida de novo depois.
      */
     public void deleteImage(String filePath) throws IOException {
         if (filePath == null || filePath.isEmpty()) {
             return;
         }
 
-        // Resolver o caminho do diretório de uploads
+        // Aceita o caminho (/uploads/feiras/...) ou a URL completa devolvida no upload
+        int prefixo = filePath.indexOf("/uploads/");
+        if (prefixo < 0) {
+            return;
+        }
+        String caminho = filePath.substring(prefixo);
+
+        // O caminho é relativo ao diretório de uploads, sem o /uploads/ inicial
         Path uploadPath = resolveUploadPath();
-        
-        // Remover barra inicial se existir
-        String cleanPath = filePath.startsWith("/") ? filePath.substring(1) : filePath;
-        Path path = uploadPath.resolve(cleanPath);
+        Path path = uploadPath.resolve(caminho.substring("/uploads/".length())).normalize();
+        if (!path.startsWith(uploadPath)) {
+            throw new IllegalArgumentException("Caminho de imagem inválido");
+        }
+
+        excluir(caminho, path);
+    }
+
+    private void excluir(String caminho, Path path) throws IOException {
+        synchronized (trava(caminho)) {
+            if (emUso(caminho)) {
+                log.debug("Imagem ainda referenciada, não excluída: {}", caminho);
+                exclusoesAdiadas.remove(caminho);
+                return;
+            }
+            Long enviado = enviados.get(caminho);
+            if (enviado != null && System.currentTimeMillis() - enviado < carenciaExclusaoMs) {
+                log.debug("Imagem enviada há pouco, exclusão adiada: {}", caminho);
+                exclusoesAdiadas.add(caminho);
+                return;
+            }
+            exclusoesAdiadas.remove(caminho);
+            Files.deleteIfExists(path);
+            if (caminho.startsWith("/uploads/feiras/")) {
+                eventPublisher.publishEvent(ImagemUploadEvent.excluida(caminho.substring("/uploads/feiras/".length())));
+            }
+        }
+    }
+
+    /**
+     * Refaz as exclusões adiadas pela carência e esquece os uploads mais antigos que ela
+     */
+    @Scheduled(fixedDelayString = "${file.exclusao.carencia-ms:600000}")
+    public void excluirAdiadas() {
+        long limite = System.currentTimeMillis() - carenciaExclusaoMs;
+        Path uploadPath = resolveUploadPath();
+        for (String caminho : exclusoesAdiadas) {
+            try {
+                excluir(caminho, uploadPath.resolve(caminho.substring("/uploads/".length())).normalize());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Falha na exclusão adiada da imagem {}: {}", caminho, e.toString());
+            }
+        }
+        enviados.values().removeIf(enviado -> enviado < limite);
+    }
+
+    private Object trava(String caminho) {
+        return travas[Math.floorMod(caminho.hashCode(), travas.length)];
+    }
+
+    // As colunas guardam o caminho ou a URL completa: compara pelo final
+    private boolean emUso(String caminho) {
+        Boolean usado = jdbcTemplate.queryForObject(SQL_IMAGEM_EM_USO, Map.of("caminho", "%" + caminho), Boolean.class);
+        return Boolean.TRUE.equals(usado);
+    }
 
-        if (Files.exists(path)) {
-            Files.delete(path);
+    private static MessageDigest novoSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
         }
     }
 
@@ -0,0 +1,31 @@
+package com.feirasmart.service;
+
+/**
+ * Publicado pelo FileStorageService quando uma imagem de feira é gravada ou
+ * excluída, com o nome do arquivo dentro de uploads/feiras.
+ */
+public class ImagemUploadEvent {
+    private final String arquivo;
+    private final boolean excluida;
+
+    private ImagemUploadEvent(String arquivo, boolean excluida) {
+        this.arquivo = arquivo;
+        this.excluida = excluida;
+    }
+
+    public static ImagemUploadEvent gravada(String arquivo) {
+        return new ImagemUploadEvent(arquivo, false);
+    }
+
+    public static ImagemUploadEvent excluida(String arquivo) {
+        return new ImagemUploadEvent(arquivo, true);
+    }
+
+    public String getArquivo() {
+        return arquivo;
+    }
+
+    public boolean isExcluida() {
+        return excluida;
+    }
+}
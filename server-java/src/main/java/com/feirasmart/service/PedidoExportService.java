@@ -0,0 +1,183 @@
+package com.feirasmart.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Exportação do histórico de pedidos de um feirante direto do ResultSet para a
+ * resposta. A consulta roda com cursor (fetch size, sem autocommit) e sem
+ * persistence context, então a memória usada não cresce com o número de pedidos.
+ */
+@Service
+public class PedidoExportService {
+    public enum Formato { CSV, NDJSON }
+
+    private static final String SQL =
+            "SELECT p.id, p.created_at, p.status, p.total, p.observacoes, fa.nome AS feira, fe.nome_estande, " +
+            "c.nome AS cliente, i.produto_id, i.nome_produto, i.quantidade, i.preco " +
+            "FROM pedidos p " +
+            "JOIN feirantes fe ON fe.id = p.feirante_id " +
+            "JOIN feiras fa ON fa.id = p.feira_id " +
+            "JOIN profiles c ON c.id = p.cliente_id " +
+            "JOIN pedido_itens i ON i.pedido_id = p.id " +
+            "WHERE fe.user_id = ? AND p.created_at >= ? AND p.created_at < ? " +
+            "ORDER BY p.created_at, p.id";
+
+    private static final String CABECALHO_CSV =
+            "pedido_id,data,status,total,feira,estande,cliente,observacoes,produto_id,produto,quantidade,preco\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public PedidoExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                               @Value("${pedidos.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // O driver do PostgreSQL só usa cursor com autocommit desligado, ou seja, dentro de uma transação
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public void exportar(UUID userId, LocalDateTime inicio, LocalDateTime fim, Formato formato, OutputStream saida)
+            throws IOException {
+        OutputStream buffer = new BufferedOutputStream(saida, 64 * 1024);
+        Escritor escritor = formato == Formato.CSV ? new EscritorCsv(buffer) : new EscritorNdjson(buffer);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    SQL, escritor, userId, Timestamp.valueOf(inicio), Timestamp.valueOf(fim)));
+        } catch (UncheckedIOException e) {
+            // Cliente desconectou no meio do download
+            throw e.getCause();
+        }
+
+        escritor.close();
+        buffer.flush();
+    }
+
+    private interface Escritor extends RowCallbackHandler, Closeable {
+    }
+
+    // Uma linha por item de pedido
+    private static class EscritorCsv implements Escritor {
+        private final Writer writer;
+
+        EscritorCsv(OutputStream saida) throws IOException {
+            this.writer = new OutputStreamWriter(saida, StandardCharsets.UTF_8);
+            this.writer.write(CABECALHO_CSV);
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                campo(rs.getString("id")).write(',');
+                campo(rs.getTimestamp("created_at").toLocalDateTime().toString()).write(',');
+                campo(rs.getString("status")).write(',');
+                campo(rs.getBigDecimal("total").toPlainString()).write(',');
+                campo(rs.getString("feira")).write(',');
+                campo(rs.getString("nome_estande")).write(',');
+                campo(rs.getString("cliente")).write(',');
+                campo(rs.getString("observacoes")).write(',');
+                campo(rs.getString("produto_id")).write(',');
+                campo(rs.getString("nome_produto")).write(',');
+                campo(String.valueOf(rs.getInt("quantidade"))).write(',');
+                campo(rs.getBigDecimal("preco").toPlainString()).write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Writer campo(String valor) throws IOException {
+            if (valor == null) {
+                return writer;
+            }
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                writer.write(valor);
+                return writer;
+            }
+            writer.write('"');
+            writer.write(valor.replace("\"", "\"\""));
+            writer.write('"');
+            return writer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    // Um objeto JSON por pedido, com os itens agrupados (linhas vêm ordenadas por pedido)
+    private class EscritorNdjson implements Escritor {
+        private final JsonGenerator gerador;
+        private String pedidoAtual;
+
+        EscritorNdjson(OutputStream saida) throws IOException {
+            this.gerador = objectMapper.getFactory().createGenerator(saida, JsonEncoding.UTF8);
+            this.gerador.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                String pedidoId = rs.getString("id");
+                if (!pedidoId.equals(pedidoAtual)) {
+                    fecharPedido();
+                    pedidoAtual = pedidoId;
+                    gerador.writeStartObject();
+                    gerador.writeStringField("id", pedidoId);
+                    gerador.writeStringField("data", rs.getTimestamp("created_at").toLocalDateTime().toString());
+                    gerador.writeStringField("status", rs.getString("status"));
+                    gerador.writeNumberField("total", rs.getBigDecimal("total"));
+                    gerador.writeStringField("feira", rs.getString("feira"));
+                    gerador.writeStringField("estande", rs.getString("nome_estande"));
+                    gerador.writeStringField("cliente", rs.getString("cliente"));
+                    gerador.writeStringField("observacoes", rs.getString("observacoes"));
+                    gerador.writeArrayFieldStart("itens");
+                }
+                gerador.writeStartObject();
+                gerador.writeStringField("produtoId", rs.getString("produto_id"));
+                gerador.writeStringField("nomeProduto", rs.getString("nome_produto"));
+                gerador.writeNumberField("quantidade", rs.getInt("quantidade"));
+                gerador.writeNumberField("preco", rs.getBigDecimal("preco"));
+                gerador.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void fecharPedido() throws IOException {
+            if (pedidoAtual != null) {
+                gerador.writeEndArray();
+                gerador.writeEndObject();
+                gerador.writeRaw('\n');
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            fecharPedido();
+            gerador.flush();
+        }
+    }
+}
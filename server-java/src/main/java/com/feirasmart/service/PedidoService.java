@@ -3,7 +3,12 @@ package com.feirasmart.service;
 import com.feirasmart.model.*;
 import com.feirasmart.repository.*;
 import com.feirasmart.repository.UserRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,6 +19,8 @@ import java.util.UUID;
 
 @Service
 public class PedidoService {
+    private static final Logger log = LoggerFactory.getLogger(PedidoService.class);
+
     @Autowired
     private PedidoRepository pedidoRepository;
 
@@ -29,8 +36,68 @@ public class PedidoService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrecificacaoService precificacaoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    /**
+     * Fases de create (validacao, precificacao, persistencia): cada uma vira o
+     * timer feirasmart.pedido.criacao{fase} e um span, pai dos spans JDBC da fase.
+     * A fase aberta numa exceção é encerrada com a tag error.
+     */
+    private final class Fases {
+        private Observation observation;
+        private Observation.Scope scope;
+
+        Fases(String primeira) {
+            iniciar(primeira);
+        }
+
+        private void iniciar(String fase) {
+            observation = Observation.createNotStarted("feirasmart.pedido.criacao", observationRegistry)
+                    .contextualName("pedido " + fase)
+                    .lowCardinalityKeyValue("fase", fase)
+                    .start();
+            scope = observation.openScope();
+        }
+
+        void proxima(String fase) {
+            encerrar(null);
+            iniciar(fase);
+        }
+
+        void encerrar(Throwable erro) {
+            if (observation == null) {
+                return;
+            }
+            scope.close();
+            if (erro != null) {
+                observation.error(erro);
+            }
+            observation.stop();
+            observation = null;
+        }
+    }
+
     @Transactional
     public Pedido create(UUID clienteId, UUID feiranteId, UUID feiraId, List<ItemPedidoDTO> itensDTO, String observacoes) {
+        Fases fases = new Fases("validacao");
+        try {
+            return create(fases, clienteId, feiranteId, feiraId, itensDTO, observacoes);
+        } catch (RuntimeException e) {
+            fases.encerrar(e);
+            throw e;
+        }
+    }
+
+    private Pedido create(Fases fases, UUID clienteId, UUID feiranteId, UUID feiraId,
+                          List<ItemPedidoDTO> itensDTO, String observacoes) {
+
         // Buscar cliente
         User cliente = userRepository.findById(clienteId)
                 .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
@@ -47,6 +114,7 @@ public class PedidoService {
         // Buscar feira
         Feira feira = feiraRepository.findById(feiraId)
                 .orElseThrow(() -> new RuntimeException("Feira não encontrada"));
+        fases.proxima("precificacao");
 
         // Criar o pedido
         Pedido pedido = new Pedido();
@@ -56,22 +124,25 @@ public class PedidoService {
         pedido.setStatus(PedidoStatus.PENDENTE);
         pedido.setObservacoes(observacoes);
 
+        // Preço e nome vêm do snapshot do servidor; o preço do cliente é só a cotação
+        PrecificacaoService.Cotacao cotacao = precificacaoService.cotar(itensDTO.stream()
+                .map(itemDTO -> new PrecificacaoService.ItemSolicitado(
+                        itemDTO.getProdutoId(), itemDTO.getQuantidade(), itemDTO.getPreco()))
+                .toList());
+
         // Criar os itens do pedido
         List<PedidoItem> itens = new ArrayList<>();
-        BigDecimal total = BigDecimal.ZERO;
 
-        for (ItemPedidoDTO itemDTO : itensDTO) {
-            // Buscar o produto
-            Produto produto = produtoRepository.findById(itemDTO.getProdutoId())
-                    .orElseThrow(() -> new RuntimeException("Produto não encontrado: " + itemDTO.getProdutoId()));
+        for (PrecificacaoService.ItemCotado itemCotado : cotacao.getItens()) {
+            PrecoSnapshotService.PrecoSnapshot produto = itemCotado.getProduto();
 
             // Verificar se o produto pertence ao feirante
             // Pode verificar pelo feirante diretamente ou pelo user do feirante
             boolean produtoPertenceAoFeirante = false;
-            if (produto.getFeirante() != null && produto.getFeirante().getId().equals(feiranteId)) {
+            if (produto.getFeiranteId() != null && produto.getFeiranteId().equals(feiranteId)) {
                 produtoPertenceAoFeirante = true;
-            } else if (produto.getUser() != null && feirante.getUser() != null 
-                    && produto.getUser().getId().equals(feirante.getUser().getId())) {
+            } else if (produto.getUserId() != null && feirante.getUser() != null 
+                    && produto.getUserId().equals(feirante.getUser().getId())) {
                 produtoPertenceAoFeirante = true;
             }
             
@@ -80,23 +151,19 @@ public class PedidoService {
             }
 
             // Verificar estoque
-            if (produto.getEstoque() < itemDTO.getQuantidade()) {
+            if (produto.getEstoque() < itemCotado.getQuantidade()) {
                 throw new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
             }
 
-            // Criar item do pedido
+            // Criar item do pedido (referência ao produto sem nova consulta)
             PedidoItem item = new PedidoItem();
             item.setPedido(pedido);
-            item.setProduto(produto);
-            item.setNomeProduto(itemDTO.getNomeProduto() != null ? itemDTO.getNomeProduto() : produto.getNome());
-            item.setQuantidade(itemDTO.getQuantidade());
-            item.setPreco(itemDTO.getPreco());
+            item.setProduto(produtoRepository.getReferenceById(produto.getProdutoId()));
+            item.setNomeProduto(produto.getNome());
+            item.setQuantidade(itemCotado.getQuantidade());
+            item.setPreco(produto.getPreco());
 
             itens.add(item);
-
-            // Calcular subtotal
-            BigDecimal subtotal = itemDTO.getPreco().multiply(BigDecimal.valueOf(itemDTO.getQuantidade()));
-            total = total.add(subtotal);
         }
 
         if (itens.isEmpty()) {
@@ -104,25 +171,41 @@ public class PedidoService {
         }
 
         pedido.setItens(itens);
-        pedido.setTotal(total);
-
-        System.out.println("💾 Salvando pedido:");
-        System.out.println("   Cliente ID: " + cliente.getId());
-        System.out.println("   Feirante ID: " + feirante.getId());
-        System.out.println("   Feira ID: " + feira.getId());
-        System.out.println("   Total: " + total);
-        System.out.println("   Quantidade de itens: " + itens.size());
+        pedido.setTotal(cotacao.getTotal());
+        fases.proxima("persistencia");
 
-        // Salvar o pedido (os itens serão salvos automaticamente devido ao cascade)
-        Pedido pedidoSalvo = pedidoRepository.save(pedido);
-        
-        System.out.println("✅ Pedido salvo com sucesso:");
-        System.out.println("   Pedido ID: " + pedidoSalvo.getId());
-        System.out.println("   Cliente ID no pedido salvo: " + pedidoSalvo.getCliente().getId());
+        // Salvar o pedido (os itens serão salvos automaticamente devido ao cascade).
+        // O flush aqui faz os INSERTs caírem dentro da fase medida, e não no commit.
+        Pedido pedidoSalvo = pedidoRepository.saveAndFlush(pedido);
+        fases.encerrar(null);
         
+        log.debug("Pedido {} salvo: cliente={} feirante={} feira={} total={} itens={}", pedidoSalvo.getId(),
+                cliente.getId(), feirante.getId(), feira.getId(), cotacao.getTotal(), itens.size());
+
+        eventPublisher.publishEvent(PedidoVendaEvent.criados(List.of(pedidoSalvo)));
+
         return pedidoSalvo;
     }
 
+    /**
+     * Altera o status do pedido. Cancelar (ou reabrir um cancelado) retira
+     * (ou devolve) o pedido dos agregados de vendas.
+     */
+    @Transactional
+    public Pedido updateStatus(Pedido pedido, PedidoStatus status) {
+        PedidoStatus anterior = pedido.getStatus();
+        pedido.setStatus(status);
+        Pedido salvo = pedidoRepository.save(pedido);
+
+        if (anterior != PedidoStatus.CANCELADO && status == PedidoStatus.CANCELADO) {
+            eventPublisher.publishEvent(PedidoVendaEvent.cancelados(List.of(salvo)));
+        } else if (anterior == PedidoStatus.CANCELADO && status != PedidoStatus.CANCELADO) {
+            eventPublisher.publishEvent(PedidoVendaEvent.criados(List.of(salvo)));
+        }
+
+        return salvo;
+    }
+
     // DTO interno para receber os itens do pedido
     public static class ItemPedidoDTO {
         private UUID produtoId;
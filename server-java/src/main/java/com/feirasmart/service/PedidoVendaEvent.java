@@ -0,0 +1,130 @@
+package com.feirasmart.service;
+
+import com.feirasmart.model.Pedido;
+import com.feirasmart.model.PedidoItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Publicado quando pedidos passam a contar (criação) ou deixam de contar
+ * (cancelamento) como venda. Carrega só os dados necessários para os
+ * agregados, sem referências a entidades JPA, pois é consumido após o commit
+ * em outra thread.
+ */
+public class PedidoVendaEvent {
+    private final List<ItemVenda> itens;
+    private final int sinal;
+    // Época de commit marcada pelo RankingVendasService; sem marca, a venda é sempre aplicada
+    private volatile long epoca = Long.MAX_VALUE;
+
+    private PedidoVendaEvent(List<ItemVenda> itens, int sinal) {
+        this.itens = itens;
+        this.sinal = sinal;
+    }
+
+    public static PedidoVendaEvent criados(Collection<Pedido> pedidos) {
+        return new PedidoVendaEvent(itensDe(pedidos), 1);
+    }
+
+    public static PedidoVendaEvent cancelados(Collection<Pedido> pedidos) {
+        return new PedidoVendaEvent(itensDe(pedidos), -1);
+    }
+
+    private static List<ItemVenda> itensDe(Collection<Pedido> pedidos) {
+        List<ItemVenda> itens = new ArrayList<>();
+        for (Pedido pedido : pedidos) {
+            LocalDateTime data = pedido.getCreatedAt() != null ? pedido.getCreatedAt() : LocalDateTime.now();
+            for (PedidoItem item : pedido.getItens()) {
+                itens.add(new ItemVenda(pedido.getId(), pedido.getFeira().getId(), pedido.getFeirante().getId(),
+                        pedido.getFeirante().getNomeEstande(), item.getProduto().getId(), item.getNomeProduto(),
+                        item.getQuantidade(), item.getPreco().multiply(BigDecimal.valueOf(item.getQuantidade())), data));
+            }
+        }
+        return List.copyOf(itens);
+    }
+
+    public List<ItemVenda> getItens() {
+        return itens;
+    }
+
+    /**
+     * 1 para vendas novas, -1 para vendas canceladas
+     */
+    public int getSinal() {
+        return sinal;
+    }
+
+    long getEpoca() {
+        return epoca;
+    }
+
+    void setEpoca(long epoca) {
+        this.epoca = epoca;
+    }
+
+    public static class ItemVenda {
+        private final UUID pedidoId;
+        private final UUID feiraId;
+        private final UUID feiranteId;
+        private final String nomeEstande;
+        private final UUID produtoId;
+        private final String nomeProduto;
+        private final int quantidade;
+        private final BigDecimal receita;
+        private final LocalDateTime data;
+
+        public ItemVenda(UUID pedidoId, UUID feiraId, UUID feiranteId, String nomeEstande, UUID produtoId,
+                         String nomeProduto, int quantidade, BigDecimal receita, LocalDateTime data) {
+            this.pedidoId = pedidoId;
+            this.feiraId = feiraId;
+            this.feiranteId = feiranteId;
+            this.nomeEstande = nomeEstande;
+            this.produtoId = produtoId;
+            this.nomeProduto = nomeProduto;
+            this.quantidade = quantidade;
+            this.receita = receita;
+            this.data = data;
+        }
+
+        public UUID getPedidoId() {
+            return pedidoId;
+        }
+
+        public UUID getFeiraId() {
+            return feiraId;
+        }
+
+        public UUID getFeiranteId() {
+            return feiranteId;
+        }
+
+        public String getNomeEstande() {
+            return nomeEstande;
+        }
+
+        public UUID getProdutoId() {
+            return produtoId;
+        }
+
+        public String getNomeProduto() {
+            return nomeProduto;
+        }
+
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        public BigDecimal getReceita() {
+            return receita;
+        }
+
+        public LocalDateTime getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.feirasmart.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Calcula o valor dos pedidos usando o preço e o nome do produto do snapshot do
+ * servidor. O preço enviado pelo cliente serve apenas como cotação: se divergir
+ * do preço atual, o pedido é recusado com a lista de diferenças.
+ */
+@Service
+public class PrecificacaoService {
+    @Autowired
+    private PrecoSnapshotService precoSnapshotService;
+
+    public Cotacao cotar(List<ItemSolicitado> itensSolicitados) {
+        Map<UUID, PrecoSnapshotService.PrecoSnapshot> snapshots = precoSnapshotService.buscar(
+                itensSolicitados.stream().map(ItemSolicitado::getProdutoId).distinct().toList());
+
+        List<ItemCotado> itens = new ArrayList<>(itensSolicitados.size());
+        List<Divergencia> divergencias = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        long versao = 0;
+
+        for (ItemSolicitado solicitado : itensSolicitados) {
+            PrecoSnapshotService.PrecoSnapshot produto = snapshots.get(solicitado.getProdutoId());
+            if (produto == null) {
+                throw new RuntimeException("Produto não encontrado: " + solicitado.getProdutoId());
+            }
+            if (solicitado.getQuantidade() == null || solicitado.getQuantidade() <= 0) {
+                throw new RuntimeException("Quantidade inválida para o produto: " + produto.getNome());
+            }
+
+            if (solicitado.getPrecoInformado() != null
+                    && solicitado.getPrecoInformado().compareTo(produto.getPreco()) != 0) {
+                divergencias.add(new Divergencia(produto.getProdutoId(), produto.getNome(),
+                        solicitado.getPrecoInformado(), produto.getPreco()));
+            }
+
+            BigDecimal subtotal = produto.getPreco().multiply(BigDecimal.valueOf(solicitado.getQuantidade()));
+            total = total.add(subtotal);
+            versao = Math.max(versao, produto.getVersao());
+            itens.add(new ItemCotado(produto, solicitado.getQuantidade(), subtotal));
+        }
+
+        if (!divergencias.isEmpty()) {
+            throw new PrecoDivergenteException(divergencias);
+        }
+
+        return new Cotacao(itens, total.setScale(2, RoundingMode.HALF_EVEN), versao);
+    }
+
+    public static class ItemSolicitado {
+        private final UUID produtoId;
+        private final Integer quantidade;
+        private final BigDecimal precoInformado;
+
+        public ItemSolicitado(UUID produtoId, Integer quantidade, BigDecimal precoInformado) {
+            this.produtoId = produtoId;
+            this.quantidade = quantidade;
+            this.precoInformado = precoInformado;
+        }
+
+        public UUID getProdutoId() {
+            return produtoId;
+        }
+
+        public Integer getQuantidade() {
+            return quantidade;
+        }
+
+        public BigDecimal getPrecoInformado() {
+            return precoInformado;
+        }
+    }
+
+    public static class ItemCotado {
+        private final PrecoSnapshotService.PrecoSnapshot produto;
+        private final int quantidade;
+        private final BigDecimal subtotal;
+
+        public ItemCotado(PrecoSnapshotService.PrecoSnapshot produto, int quantidade, BigDecimal subtotal) {
+            this.produto = produto;
+            this.quantidade = quantidade;
+            this.subtotal = subtotal;
+        }
+
+        public PrecoSnapshotService.PrecoSnapshot getProduto() {
+            return produto;
+        }
+
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        public BigDecimal getSubtotal() {
+            return subtotal;
+        }
+    }
+
+    public static class Cotacao {
+        private final List<ItemCotado> itens;
+        private final BigDecimal total;
+        private final long versao;
+
+        public Cotacao(List<ItemCotado> itens, BigDecimal total, long versao) {
+            this.itens = itens;
+            this.total = total;
+            this.versao = versao;
+        }
+
+        public List<ItemCotado> getItens() {
+            return itens;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public long getVersao() {
+            return versao;
+        }
+    }
+
+    public static class Divergencia {
+        private final UUID produtoId;
+        private final String nome;
+        private final BigDecimal precoInformado;
+        private final BigDecimal precoAtual;
+
+        public Divergencia(UUID produtoId, String nome, BigDecimal precoInformado, BigDecimal precoAtual) {
+            this.produtoId = produtoId;
+            this.nome = nome;
+            this.precoInformado = precoInformado;
+            this.precoAtual = precoAtual;
+        }
+
+        public UUID getProdutoId() {
+            return produtoId;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public BigDecimal getPrecoInformado() {
+            return precoInformado;
+        }
+
+        public BigDecimal getPrecoAtual() {
+            return precoAtual;
+        }
+    }
+
+    // Lançada quando a cotação do cliente não bate com o preço atual dos produtos
+    public static class PrecoDivergenteException extends RuntimeException {
+        private final List<Divergencia> divergencias;
+
+        public PrecoDivergenteException(List<Divergencia> divergencias) {
+            super("Os preços de alguns produtos mudaram. Revise o carrinho antes de finalizar.");
+            this.divergencias = divergencias;
+        }
+
+        public List<Divergencia> getDivergencias() {
+            return divergencias;
+        }
+    }
+}
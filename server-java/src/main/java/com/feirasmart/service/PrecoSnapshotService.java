@@ -0,0 +1,196 @@
+package com.feirasmart.service;
+
+import com.feirasmart.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache em memória do preço, nome e estoque dos produtos, usado como fonte
+ * autoritativa na precificação de pedidos. Entradas ausentes são carregadas em
+ * lote com uma única consulta; alterações de produto invalidam a entrada e
+ * incrementam a versão global do snapshot.
+ */
+@Service
+public class PrecoSnapshotService {
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private final Map<UUID, PrecoSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong versao = new AtomicLong();
+
+    // Distingue instâncias da API: a versão é só um contador local
+    private final String instancia = Long.toHexString(UUID.randomUUID().getMostSignificantBits());
+
+    public long getVersao() {
+        return versao.get();
+    }
+
+    /**
+     * ETag do catálogo de produtos; muda a cada alteração de produto ou feirante
+     */
+    public String getEtagCatalogo() {
+        return "W/\"" + instancia + "-" + versao.get() + "\"";
+    }
+
+    /**
+     * Retorna o snapshot dos produtos informados. Produtos inexistentes ficam fora do mapa.
+     */
+    public Map<UUID, PrecoSnapshot> buscar(Collection<UUID> produtoIds) {
+        Map<UUID, PrecoSnapshot> resultado = new HashMap<>(produtoIds.size() * 2);
+        List<UUID> faltando = new ArrayList<>();
+
+        for (UUID id : produtoIds) {
+            PrecoSnapshot snapshot = snapshots.get(id);
+            if (snapshot != null) {
+                resultado.put(id, snapshot);
+            } else {
+                faltando.add(id);
+            }
+        }
+
+        if (!faltando.isEmpty()) {
+            long versaoLeitura = versao.get();
+            for (ProdutoRepository.PrecoProjection p : produtoRepository.findPrecosByIdIn(faltando)) {
+                PrecoSnapshot snapshot = new PrecoSnapshot(p.getId(), p.getNome(), p.getPreco(), p.getEstoque(),
+                        p.getDisponivel(), p.getFeiranteId(), p.getUserId(), versaoLeitura);
+                resultado.put(p.getId(), snapshot);
+                snapshots.put(p.getId(), snapshot);
+                // Uma invalidação concorrente pode ter chegado entre a leitura e o put:
+                // nesse caso o valor lido pode estar velho e não deve ficar no cache
+                if (versao.get() != versaoLeitura) {
+                    snapshots.remove(p.getId(), snapshot);
+                }
+            }
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Invalida o snapshot de um produto. Dentro de uma transação, a entrada é
+     * removida de novo após o commit, para não guardar um valor lido antes dele.
+     */
+    public void invalidar(UUID produtoId) {
+        invalidar(List.of(produtoId));
+    }
+
+    public void invalidar(Collection<UUID> produtoIds) {
+        remover(produtoIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remover(produtoIds);
+                }
+            });
+        }
+    }
+
+    /**
+     * Descarta o snapshot inteiro (ex.: remoção de feirante, que apaga os produtos em cascata)
+     */
+    public void invalidarTudo() {
+        limpar();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    limpar();
+                }
+            });
+        }
+    }
+
+    /**
+     * Só muda o ETag do catálogo, após o commit, mantendo os preços em cache:
+     * para alterações de dados embutidos nos produtos que não são preço nem
+     * estoque (ex.: avaliação do feirante)
+     */
+    public void invalidarCatalogo() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versao.incrementAndGet();
+                }
+            });
+        } else {
+            versao.incrementAndGet();
+        }
+    }
+
+    private void limpar() {
+        versao.incrementAndGet();
+        snapshots.clear();
+    }
+
+    private void remover(Collection<UUID> produtoIds) {
+        versao.incrementAndGet();
+        for (UUID id : produtoIds) {
+            snapshots.remove(id);
+        }
+    }
+
+    // Visão imutável do produto no momento da leitura
+    public static class PrecoSnapshot {
+        private final UUID produtoId;
+        private final String nome;
+        private final BigDecimal preco;
+        private final Integer estoque;
+        private final Boolean disponivel;
+        private final UUID feiranteId;
+        private final UUID userId;
+        private final long versao;
+
+        public PrecoSnapshot(UUID produtoId, String nome, BigDecimal preco, Integer estoque, Boolean disponivel,
+                             UUID feiranteId, UUID userId, long versao) {
+            this.produtoId = produtoId;
+            this.nome = nome;
+            this.preco = preco;
+            this.estoque = estoque;
+            this.disponivel = disponivel;
+            this.feiranteId = feiranteId;
+            this.userId = userId;
+            this.versao = versao;
+        }
+
+        public UUID getProdutoId() {
+            return produtoId;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public BigDecimal getPreco() {
+            return preco;
+        }
+
+        public Integer getEstoque() {
+            return estoque;
+        }
+
+        public Boolean getDisponivel() {
+            return disponivel;
+        }
+
+        public UUID getFeiranteId() {
+            return feiranteId;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public long getVersao() {
+            return versao;
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package com.feirasmart.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.feirasmart.model.Feirante;
+import com.feirasmart.repository.FeiranteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Importação em lote do catálogo de um feirante a partir de CSV ou NDJSON.
+ * O corpo é lido linha a linha (sem carregar o arquivo inteiro), e as linhas
+ * válidas são gravadas em lotes de tamanho configurável: uma consulta localiza
+ * os produtos já existentes do lote e o restante vira batch de UPDATE e INSERT.
+ * A chave do upsert é o sku, quando informado, ou o nome do produto.
+ */
+@Service
+public class ProdutoImportService {
+    public enum Formato { CSV, NDJSON }
+
+    private static final List<String> COLUNAS = List.of(
+            "nome", "descricao", "preco", "unidade", "categoria", "imagem", "estoque", "disponivel", "sku");
+
+    private static final String SQL_INSERT =
+            "INSERT INTO produtos (id, user_id, feirante_id, nome, descricao, preco, unidade, categoria, imagem, " +
+            "estoque, disponivel, sku, created_at, updated_at) VALUES (:id, :userId, :feiranteId, :nome, :descricao, " +
+            ":preco, :unidade, :categoria, :imagem, :estoque, :disponivel, :sku, :agora, :agora)";
+
+    private static final String SQL_UPDATE =
+            "UPDATE produtos SET nome = :nome, descricao = :descricao, preco = :preco, unidade = :unidade, " +
+            "categoria = :categoria, imagem = :imagem, estoque = :estoque, disponivel = :disponivel, " +
+            "sku = COALESCE(CAST(:sku AS TEXT), sku), updated_at = :agora WHERE id = :id AND user_id = :userId";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FeiranteRepository feiranteRepository;
+
+    @Autowired
+    private PrecoSnapshotService precoSnapshotService;
+
+    @Autowired
+    private FeiraSnapshotService feiraSnapshotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${produtos.bulk.batch-size:200}")
+    private int batchSize;
+
+    public RelatorioImportacao importar(UUID userId, InputStream corpo, Formato formato) throws IOException {
+        // Mesma regra do cadastro unitário: vincula ao primeiro feirante do usuário, se houver
+        List<Feirante> feirantes = feiranteRepository.findByUserId(userId);
+        UUID feiranteId = feirantes.isEmpty() ? null : feirantes.get(0).getId();
+
+        RelatorioImportacao relatorio = new RelatorioImportacao();
+        List<LinhaImportacao> lote = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8))) {
+            int numeroLinha = 0;
+            String[] cabecalho = null;
+            char separador = ',';
+            String linha;
+
+            while ((linha = reader.readLine()) != null) {
+                numeroLinha++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+
+                if (formato == Formato.CSV && cabecalho == null) {
+                    // Planilhas em pt-BR costumam exportar com ';'
+                    separador = linha.indexOf(';') >= 0 && linha.indexOf(',') < 0 ? ';' : ',';
+                    cabecalho = lerCamposCsv(linha, separador).stream()
+                            .map(c -> c.trim().toLowerCase())
+                            .toArray(String[]::new);
+                    if (!Arrays.asList(cabecalho).contains("nome") || !Arrays.asList(cabecalho).contains("preco")) {
+                        throw new IllegalArgumentException("Cabeçalho CSV deve conter as colunas nome e preco. Colunas aceitas: " + COLUNAS);
+                    }
+                    continue;
+                }
+
+                LinhaImportacao item;
+                try {
+                    item = formato == Formato.CSV
+                            ? linhaCsv(cabecalho, lerCamposCsv(linha, separador), separador)
+                            : objectMapper.readValue(linha, LinhaImportacao.class);
+                    item.setLinha(numeroLinha);
+                    validar(item);
+                } catch (Exception e) {
+                    relatorio.adicionar(ResultadoLinha.erro(numeroLinha, mensagem(e)));
+                    continue;
+                }
+
+                lote.add(item);
+                if (lote.size() >= batchSize) {
+                    gravarLote(userId, feiranteId, lote, relatorio);
+                    lote.clear();
+                }
+            }
+        }
+
+        if (!lote.isEmpty()) {
+            gravarLote(userId, feiranteId, lote, relatorio);
+        }
+
+        return relatorio;
+    }
+
+    private void gravarLote(UUID userId, UUID feiranteId, List<LinhaImportacao> lote, RelatorioImportacao relatorio) {
+        try {
+            List<ResultadoLinha> resultados = transactionTemplate.execute(status -> upsert(userId, feiranteId, lote));
+            resultados.forEach(relatorio::adicionar);
+        } catch (Exception e) {
+            // O lote inteiro é desfeito; as linhas ficam com o erro do banco
+            String erro = "Erro ao gravar lote: " + mensagem(e);
+            lote.forEach(item -> relatorio.adicionar(ResultadoLinha.erro(item.getLinha(), erro)));
+        }
+    }
+
+    private List<ResultadoLinha> upsert(UUID userId, UUID feiranteId, List<LinhaImportacao> lote) {
+        Set<String> skus = new HashSet<>();
+        Set<String> nomes = new HashSet<>();
+        for (LinhaImportacao item : lote) {
+            if (item.getSku() != null) {
+                skus.add(item.getSku());
+            } else {
+                nomes.add(item.getNome());
+            }
+        }
+
+        // Uma consulta para descobrir quais linhas do lote já existem no catálogo
+        Map<String, UUID> existentes = new HashMap<>();
+        MapSqlParameterSource busca = new MapSqlParameterSource("userId", userId)
+                .addValue("skus", skus.isEmpty() ? List.of("") : skus)
+                .addValue("nomes", nomes.isEmpty() ? List.of("") : nomes);
+        jdbcTemplate.query(
+                "SELECT id, sku, nome FROM produtos WHERE user_id = :userId AND (sku IN (:skus) OR nome IN (:nomes)) " +
+                "ORDER BY created_at",
+                busca,
+                rs -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    String sku = rs.getString("sku");
+                    String nome = rs.getString("nome");
+                    if (sku != null && skus.contains(sku)) {
+                        existentes.putIfAbsent("sku:" + sku, id);
+                    }
+                    if (nomes.contains(nome)) {
+                        existentes.putIfAbsent("nome:" + nome, id);
+                    }
+                });
+
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<MapSqlParameterSource> inserts = new ArrayList<>();
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        List<UUID> gravados = new ArrayList<>(lote.size());
+        List<ResultadoLinha> resultados = new ArrayList<>(lote.size());
+
+        for (LinhaImportacao item : lote) {
+            String chave = item.getSku() != null ? "sku:" + item.getSku() : "nome:" + item.getNome();
+            UUID id = existentes.get(chave);
+            boolean novo = id == null;
+            if (novo) {
+                id = UUID.randomUUID();
+                // Linha repetida no mesmo lote atualiza o produto que acabou de ser inserido
+                existentes.put(chave, id);
+            }
+            gravados.add(id);
+
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("id", id)
+                    .addValue("userId", userId)
+                    .addValue("feiranteId", feiranteId)
+                    .addValue("nome", item.getNome())
+                    .addValue("descricao", item.getDescricao())
+                    .addValue("preco", item.getPreco())
+                    .addValue("unidade", item.getUnidade() != null ? item.getUnidade() : "unidade")
+                    .addValue("categoria", item.getCategoria())
+                    .addValue("imagem", item.getImagem())
+                    .addValue("estoque", item.getEstoque() != null ? item.getEstoque() : 0)
+                    .addValue("disponivel", item.getDisponivel() != null ? item.getDisponivel() : true)
+                    .addValue("sku", item.getSku())
+                    .addValue("agora", agora);
+
+            if (novo) {
+                inserts.add(params);
+                resultados.add(ResultadoLinha.ok(item.getLinha(), "criado", id));
+            } else {
+                updates.add(params);
+                resultados.add(ResultadoLinha.ok(item.getLinha(), "atualizado", id));
+            }
+        }
+
+        // Inserts antes dos updates: uma linha repetida no lote pode atualizar um produto recém-inserido
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERT, inserts.toArray(new MapSqlParameterSource[0]));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_UPDATE, updates.toArray(new MapSqlParameterSource[0]));
+        }
+        // Uma invalidação (e um incremento da versão do catálogo) por lote
+        precoSnapshotService.invalidar(gravados);
+        feiraSnapshotService.invalidarUsuario(userId);
+
+        return resultados;
+    }
+
+    private void validar(LinhaImportacao item) {
+        if (item.getNome() == null || item.getNome().isBlank()) {
+            throw new IllegalArgumentException("Nome do produto é obrigatório");
+        }
+        if (item.getPreco() == null || item.getPreco().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Preço é obrigatório e deve ser maior que zero");
+        }
+        if (item.getPreco().scale() > 2 || item.getPreco().precision() - item.getPreco().scale() > 8) {
+            throw new IllegalArgumentException("Preço inválido: " + item.getPreco());
+        }
+        if (item.getEstoque() != null && item.getEstoque() < 0) {
+            throw new IllegalArgumentException("Estoque não pode ser negativo");
+        }
+        item.setNome(item.getNome().trim());
+        item.setSku(vazioParaNull(item.getSku()));
+        item.setUnidade(vazioParaNull(item.getUnidade()));
+    }
+
+    private LinhaImportacao linhaCsv(String[] cabecalho, List<String> campos, char separador) {
+        if (campos.size() > cabecalho.length) {
+            throw new IllegalArgumentException("Linha com mais colunas que o cabeçalho");
+        }
+
+        LinhaImportacao item = new LinhaImportacao();
+        for (int i = 0; i < campos.size(); i++) {
+            String valor = vazioParaNull(campos.get(i));
+            if (valor == null) {
+                continue;
+            }
+            switch (cabecalho[i]) {
+                case "nome" -> item.setNome(valor);
+                case "descricao" -> item.setDescricao(valor);
+                // Com ';' como separador o decimal costuma vir com vírgula (4,50)
+                case "preco" -> item.setPreco(new BigDecimal(separador == ';' ? valor.replace(',', '.') : valor));
+                case "unidade" -> item.setUnidade(valor);
+                case "categoria" -> item.setCategoria(valor);
+                case "imagem" -> item.setImagem(valor);
+                case "estoque" -> item.setEstoque(Integer.valueOf(valor));
+                case "disponivel" -> item.setDisponivel(valor.equalsIgnoreCase("true") || valor.equalsIgnoreCase("sim") || valor.equals("1"));
+                case "sku" -> item.setSku(valor);
+                default -> { }
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Separa uma linha CSV respeitando aspas ("a, b" e aspas escapadas "")
+     */
+    private static List<String> lerCamposCsv(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"') {
+                    if (i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                        atual.append('"');
+                        i++;
+                    } else {
+                        entreAspas = false;
+                    }
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private static String vazioParaNull(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        String trimmed = valor.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String mensagem(Exception e) {
+        if (e instanceof NumberFormatException) {
+            return "Valor numérico inválido";
+        }
+        Throwable causa = e;
+        while (causa.getCause() != null && causa.getMessage() == null) {
+            causa = causa.getCause();
+        }
+        return causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+    }
+
+    // Uma linha do arquivo de importação (colunas do CSV ou campos do NDJSON)
+    public static class LinhaImportacao {
+        private int linha;
+        private String nome;
+        private String descricao;
+        private BigDecimal preco;
+        private String unidade;
+        private String categoria;
+        private String imagem;
+        private Integer estoque;
+        private Boolean disponivel;
+        private String sku;
+
+        public int getLinha() {
+            return linha;
+        }
+
+        public void setLinha(int linha) {
+            this.linha = linha;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public void setNome(String nome) {
+            this.nome = nome;
+        }
+
+        public String getDescricao() {
+            return descricao;
+        }
+
+        public void setDescricao(String descricao) {
+            this.descricao = descricao;
+        }
+
+        public BigDecimal getPreco() {
+            return preco;
+        }
+
+        public void setPreco(BigDecimal preco) {
+            this.preco = preco;
+        }
+
+        public String getUnidade() {
+            return unidade;
+        }
+
+        public void setUnidade(String unidade) {
+            this.unidade = unidade;
+        }
+
+        public String getCategoria() {
+            return categoria;
+        }
+
+        public void setCategoria(String categoria) {
+            this.categoria = categoria;
+        }
+
+        public String getImagem() {
+            return imagem;
+        }
+
+        public void setImagem(String imagem) {
+            this.imagem = imagem;
+        }
+
+        public Integer getEstoque() {
+            return estoque;
+        }
+
+        public void setEstoque(Integer estoque) {
+            this.estoque = estoque;
+        }
+
+        public Boolean getDisponivel() {
+            return disponivel;
+        }
+
+        public void setDisponivel(Boolean disponivel) {
+            this.disponivel = disponivel;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+    }
+
+    public static class ResultadoLinha {
+        private final int linha;
+        private final String status;
+        private final UUID id;
+        private final String erro;
+
+        private ResultadoLinha(int linha, String status, UUID id, String erro) {
+            this.linha = linha;
+            this.status = status;
+            this.id = id;
+            this.erro = erro;
+        }
+
+        static ResultadoLinha ok(int linha, String status, UUID id) {
+            return new ResultadoLinha(linha, status, id, null);
+        }
+
+        static ResultadoLinha erro(int linha, String erro) {
+            return new ResultadoLinha(linha, "erro", null, erro);
+        }
+
+        public int getLinha() {
+            return linha;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getErro() {
+            return erro;
+        }
+    }
+
+    public static class RelatorioImportacao {
+        private int criados;
+        private int atualizados;
+        private int erros;
+        private final List<ResultadoLinha> linhas = new ArrayList<>();
+
+        void adicionar(ResultadoLinha resultado) {
+            switch (resultado.getStatus()) {
+                case "criado" -> criados++;
+                case "atualizado" -> atualizados++;
+                default -> erros++;
+            }
+            linhas.add(resultado);
+        }
+
+        public int getCriados() {
+            return criados;
+        }
+
+        public int getAtualizados() {
+            return atualizados;
+        }
+
+        public int getErros() {
+            return erros;
+        }
+
+        public List<ResultadoLinha> getLinhas() {
+            return linhas;
+        }
+    }
+}
@@ -7,10 +7,16 @@ import com.feirasmart.repository.ProdutoRepository;
 import com.feirasmart.repository.FeiranteRepository;
 import com.feirasmart.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -24,6 +30,15 @@ public class ProdutoService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrecoSnapshotService precoSnapshotService;
+
+    @Autowired
+    private FeiraSnapshotService feiraSnapshotService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
     public List<Produto> findAll(UUID feiranteId, UUID userId, Boolean disponivel) {
         if (userId != null) {
             return produtoRepository.findByUserIdAndDisponivel(userId, disponivel);
@@ -62,7 +77,10 @@ public class ProdutoService {
         }
         // Se não houver feirante cadastrado, produto ainda pode ser criado vinculado apenas ao user_id
         
-        return produtoRepository.save(produto);
+        Produto salvo = produtoRepository.save(produto);
+        precoSnapshotService.invalidar(salvo.getId());
+        feiraSnapshotService.invalidarUsuario(userId);
+        return salvo;
     }
 
     @Transactional
@@ -82,10 +100,74 @@ public class ProdutoService {
         if (produtoData.getImagem() != null) produto.setImagem(produtoData.getImagem());
         if (produtoData.getEstoque() != null) produto.setEstoque(produtoData.getEstoque());
         if (produtoData.getDisponivel() != null) produto.setDisponivel(produtoData.getDisponivel());
+        if (produtoData.getSku() != null) produto.setSku(produtoData.getSku());
 
+        precoSnapshotService.invalidar(id);
+        feiraSnapshotService.invalidarUsuario(userId);
         return produtoRepository.save(produto);
     }
 
+    /**
+     * Aplica alterações parciais (preco, estoque, disponivel) em vários produtos do
+     * usuário numa única transação: uma consulta confere a posse de todos os ids e
+     * os UPDATEs, só com as colunas alteradas, vão em lote. A versão do catálogo é
+     * incrementada uma vez por lote.
+     */
+    @Transactional
+    public int updateEmLote(UUID userId, List<AtualizacaoParcial> atualizacoes) {
+        if (atualizacoes == null || atualizacoes.isEmpty()) {
+            throw new RuntimeException("Nenhuma atualização informada");
+        }
+
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (AtualizacaoParcial atualizacao : atualizacoes) {
+            if (atualizacao.getId() == null) {
+                throw new RuntimeException("Cada atualização deve informar o id do produto");
+            }
+            if (!ids.add(atualizacao.getId())) {
+                throw new RuntimeException("Produto repetido no lote: " + atualizacao.getId());
+            }
+            if (atualizacao.getPreco() == null && atualizacao.getEstoque() == null && atualizacao.getDisponivel() == null) {
+                throw new RuntimeException("Nenhum campo para atualizar no produto: " + atualizacao.getId());
+            }
+            if (atualizacao.getPreco() != null && atualizacao.getPreco().compareTo(BigDecimal.ZERO) <= 0) {
+                throw new RuntimeException("Preço deve ser maior que zero no produto: " + atualizacao.getId());
+            }
+            if (atualizacao.getEstoque() != null && atualizacao.getEstoque() < 0) {
+                throw new RuntimeException("Estoque não pode ser negativo no produto: " + atualizacao.getId());
+            }
+        }
+
+        // Verificar a posse de todos os produtos com uma única consulta
+        Set<UUID> doUsuario = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM produtos WHERE user_id = :userId AND id IN (:ids)",
+                new MapSqlParameterSource("userId", userId).addValue("ids", ids),
+                UUID.class));
+        if (doUsuario.size() != ids.size()) {
+            List<UUID> invalidos = ids.stream().filter(id -> !doUsuario.contains(id)).toList();
+            throw new RuntimeException("Produto não encontrado ou não pertence ao usuário: " + invalidos);
+        }
+
+        MapSqlParameterSource[] params = atualizacoes.stream()
+                .map(atualizacao -> new MapSqlParameterSource()
+                        .addValue("id", atualizacao.getId())
+                        .addValue("userId", userId)
+                        .addValue("preco", atualizacao.getPreco())
+                        .addValue("estoque", atualizacao.getEstoque())
+                        .addValue("disponivel", atualizacao.getDisponivel()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(
+                "UPDATE produtos SET preco = COALESCE(CAST(:preco AS NUMERIC), preco), " +
+                "estoque = COALESCE(CAST(:estoque AS INTEGER), estoque), " +
+                "disponivel = COALESCE(CAST(:disponivel AS BOOLEAN), disponivel), updated_at = now() " +
+                "WHERE id = :id AND user_id = :userId",
+                params);
+
+        precoSnapshotService.invalidar(ids);
+        feiraSnapshotService.invalidarUsuario(userId);
+        return ids.size();
+    }
+
     @Transactional
     public void delete(UUID id, UUID userId) {
         Produto produto = findById(id);
@@ -96,8 +178,47 @@ public class ProdutoService {
         }
 
         produtoRepository.deleteById(id);
+        precoSnapshotService.invalidar(id);
+        feiraSnapshotService.invalidarUsuario(userId);
     }
-}
 
+    // Alteração parcial de um produto no PATCH em lote
+    public static class AtualizacaoParcial {
+        private UUID id;
+        private BigDecimal preco;
+        private Integer estoque;
+        private Boolean disponivel;
+
+        public UUID getId() {
+            return id;
+        }
+
+        public void setId(UUID id) {
+            this.id = id;
+        }
 
+        public BigDecimal getPreco() {
+            return preco;
+        }
+
+        public void setPreco(BigDecimal preco) {
+            this.preco = preco;
+        }
 
+        public Integer getEstoque() {
+            return estoque;
+        }
+
+        public void setEstoque(Integer estoque) {
+            this.estoque = estoque;
+        }
+
+        public Boolean getDisponivel() {
+            return disponivel;
+        }
+
+        public void setDisponivel(Boolean disponivel) {
+            this.disponivel = disponivel;
+        }
+    }
+}
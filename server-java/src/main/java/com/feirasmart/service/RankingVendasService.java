@@ -0,0 +1,375 @@
+package com.feirasmart.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mais vendidos por feira (produtos por quantidade, feirantes por número de
+ * pedidos). Cada feira mantém um top-k aproximado (Space-Saving) alimentado
+ * pelos eventos de venda, e a lista exibida é recalculada a cada escrita: a
+ * leitura só devolve uma lista imutável já pronta, sem consulta ao banco.
+ *
+ * Periodicamente o ranking é refeito com contagens exatas de pedido_itens na
+ * janela configurada, o que descarta vendas antigas e corrige o erro da
+ * aproximação. A correção lê um snapshot do banco aberto sob a cerca de
+ * commits: cada venda é marcada com a época em que foi commitada, e na troca
+ * dos rankings as vendas que o snapshot já viu são descartadas e as que ele
+ * não viu (mesmo já aplicadas ao ranking antigo) são reaplicadas.
+ */
+@Service
+public class RankingVendasService {
+    private static final Logger log = LoggerFactory.getLogger(RankingVendasService.class);
+
+    private static final long ESPERA_CERCA_MS = 5000;
+
+    private static final String SQL_TOP_PRODUTOS =
+            "SELECT feira_id, id, nome, total FROM (" +
+            "SELECT p.feira_id, i.produto_id AS id, MAX(i.nome_produto) AS nome, SUM(i.quantidade) AS total, " +
+            "ROW_NUMBER() OVER (PARTITION BY p.feira_id ORDER BY SUM(i.quantidade) DESC) AS posicao " +
+            "FROM pedidos p JOIN pedido_itens i ON i.pedido_id = p.id " +
+            "WHERE p.created_at >= :desde AND p.status <> 'cancelado' " +
+            "GROUP BY p.feira_id, i.produto_id) t " +
+            "WHERE posicao <= :capacidade";
+
+    private static final String SQL_TOP_FEIRANTES =
+            "SELECT feira_id, id, nome, total FROM (" +
+            "SELECT p.feira_id, p.feirante_id AS id, MAX(fe.nome_estande) AS nome, COUNT(*) AS total, " +
+            "ROW_NUMBER() OVER (PARTITION BY p.feira_id ORDER BY COUNT(*) DESC) AS posicao " +
+            "FROM pedidos p JOIN feirantes fe ON fe.id = p.feirante_id " +
+            "WHERE p.created_at >= :desde AND p.status <> 'cancelado' " +
+            "GROUP BY p.feira_id, p.feirante_id) t " +
+            "WHERE posicao <= :capacidade";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ranking.capacidade:100}")
+    private int capacidade;
+
+    @Value("${ranking.tamanho:20}")
+    private int tamanho;
+
+    @Value("${ranking.janela-dias:30}")
+    private int janelaDias;
+
+    private final Map<UUID, RankingFeira> rankings = new ConcurrentHashMap<>();
+
+    // Commits de venda seguram a leitura em volta do commit; a correção pega a escrita só para abrir o snapshot
+    private final ReentrantReadWriteLock cercaCommits = new ReentrantReadWriteLock();
+    private final AtomicLong epoca = new AtomicLong();
+    // Vendas com época até aqui já estão nas contagens da última correção. Escrito sob o lock de rankings
+    private long corteAplicado = -1;
+    // Vendas aplicadas enquanto uma correção consulta o banco, para reaplicar no ranking novo
+    private List<PedidoVendaEvent> durante;
+
+    public List<ItemRanking> topProdutos(UUID feiraId, int limite) {
+        RankingFeira ranking = rankings.get(feiraId);
+        return ranking == null ? List.of() : limitar(ranking.topProdutos, limite);
+    }
+
+    public List<ItemRanking> topFeirantes(UUID feiraId, int limite) {
+        RankingFeira ranking = rankings.get(feiraId);
+        return ranking == null ? List.of() : limitar(ranking.topFeirantes, limite);
+    }
+
+    private static List<ItemRanking> limitar(List<ItemRanking> lista, int limite) {
+        return limite >= lista.size() ? lista : lista.subList(0, Math.max(limite, 0));
+    }
+
+    /**
+     * Na publicação, ainda dentro da transação do pedido: marca a venda com a
+     * época do commit, segurando a cerca do beforeCommit até o fim da transação.
+     */
+    @EventListener
+    public void aoPublicarVenda(PedidoVendaEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean cercado;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                cercaCommits.readLock().lock();
+                cercado = true;
+                event.setEpoca(epoca.get());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (cercado) {
+                    cercaCommits.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    @Async("eventosExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoRegistrarVenda(PedidoVendaEvent event) {
+        synchronized (rankings) {
+            // Commitada antes do snapshot da última correção: já está nas contagens
+            if (event.getEpoca() <= corteAplicado) {
+                return;
+            }
+            aplicar(event);
+            if (durante != null) {
+                durante.add(event);
+            }
+        }
+    }
+
+    private void aplicar(PedidoVendaEvent event) {
+        Map<UUID, List<PedidoVendaEvent.ItemVenda>> porFeira = new HashMap<>();
+        for (PedidoVendaEvent.ItemVenda item : event.getItens()) {
+            porFeira.computeIfAbsent(item.getFeiraId(), id -> new ArrayList<>()).add(item);
+        }
+        porFeira.forEach((feiraId, itens) -> rankings
+                .computeIfAbsent(feiraId, id -> new RankingFeira(capacidade, tamanho))
+                .registrar(itens, event.getSinal()));
+    }
+
+    /**
+     * Refaz todos os rankings com contagens exatas da janela (ranking.janela-dias)
+     */
+    @Scheduled(initialDelayString = "${ranking.correcao.atraso-inicial-ms:0}",
+            fixedDelayString = "${ranking.correcao.intervalo-ms:600000}")
+    public synchronized void corrigir() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("desde", Timestamp.valueOf(LocalDateTime.now().minusDays(janelaDias)))
+                .addValue("capacidade", capacidade);
+
+        // As duas consultas no mesmo snapshot, aberto com a cerca fechada: nenhum commit de venda fica no meio
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        leitura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        Map<UUID, RankingFeira> novos = new HashMap<>();
+        Long corte;
+        try {
+            corte = leitura.execute(status -> {
+                long epocaSnapshot;
+                if (!fecharCerca()) {
+                    log.warn("Correção dos rankings adiada: commits de venda contínuos por {} ms", ESPERA_CERCA_MS);
+                    return null;
+                }
+                try {
+                    // No REPEATABLE READ o snapshot é o do primeiro comando da transação
+                    jdbcTemplate.getJdbcTemplate().execute("SELECT 1");
+                    epocaSnapshot = epoca.getAndIncrement();
+                    synchronized (rankings) {
+                        durante = new ArrayList<>();
+                    }
+                } finally {
+                    cercaCommits.writeLock().unlock();
+                }
+
+                jdbcTemplate.query(SQL_TOP_PRODUTOS, params, rs -> {
+                    novos.computeIfAbsent(rs.getObject("feira_id", UUID.class), id -> new RankingFeira(capacidade, tamanho))
+                            .produtos.somar(rs.getObject("id", UUID.class), rs.getString("nome"), rs.getLong("total"));
+                });
+                jdbcTemplate.query(SQL_TOP_FEIRANTES, params, rs -> {
+                    novos.computeIfAbsent(rs.getObject("feira_id", UUID.class), id -> new RankingFeira(capacidade, tamanho))
+                            .feirantes.somar(rs.getObject("id", UUID.class), rs.getString("nome"), rs.getLong("total"));
+                });
+                return epocaSnapshot;
+            });
+        } catch (RuntimeException e) {
+            synchronized (rankings) {
+                durante = null;
+            }
+            throw e;
+        }
+
+        if (corte == null) {
+            return;
+        }
+        synchronized (rankings) {
+            rankings.keySet().retainAll(novos.keySet());
+            rankings.putAll(novos);
+            corteAplicado = corte;
+            // Aplicadas ao ranking antigo durante as consultas, commitadas depois do snapshot
+            for (PedidoVendaEvent event : durante) {
+                if (event.getEpoca() > corte) {
+                    aplicar(event);
+                }
+            }
+            durante = null;
+            novos.values().forEach(RankingFeira::publicar);
+        }
+    }
+
+    /**
+     * Tenta a escrita sem entrar na fila: um commit na fila atrás da correção
+     * poderia estar segurando o lock de linha que outro commit, já dentro da
+     * cerca, espera no flush.
+     */
+    private boolean fecharCerca() {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_CERCA_MS);
+        while (!cercaCommits.writeLock().tryLock()) {
+            if (System.nanoTime() > limite) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        return true;
+    }
+
+    private static class RankingFeira {
+        private final TopK produtos;
+        private final TopK feirantes;
+        private final int tamanho;
+
+        // Listas imutáveis lidas sem lock pelos endpoints
+        private volatile List<ItemRanking> topProdutos = List.of();
+        private volatile List<ItemRanking> topFeirantes = List.of();
+
+        RankingFeira(int capacidade, int tamanho) {
+            this.produtos = new TopK(capacidade);
+            this.feirantes = new TopK(capacidade);
+            this.tamanho = tamanho;
+        }
+
+        void registrar(List<PedidoVendaEvent.ItemVenda> itens, int sinal) {
+            Map<UUID, Set<UUID>> pedidosPorFeirante = new HashMap<>();
+            Map<UUID, String> nomesFeirantes = new HashMap<>();
+            for (PedidoVendaEvent.ItemVenda item : itens) {
+                produtos.somar(item.getProdutoId(), item.getNomeProduto(), (long) sinal * item.getQuantidade());
+                pedidosPorFeirante.computeIfAbsent(item.getFeiranteId(), id -> new HashSet<>()).add(item.getPedidoId());
+                nomesFeirantes.put(item.getFeiranteId(), item.getNomeEstande());
+            }
+            pedidosPorFeirante.forEach((feiranteId, pedidos) ->
+                    feirantes.somar(feiranteId, nomesFeirantes.get(feiranteId), (long) sinal * pedidos.size()));
+            publicar();
+        }
+
+        void publicar() {
+            topProdutos = produtos.top(tamanho);
+            topFeirantes = feirantes.top(tamanho);
+        }
+    }
+
+    /**
+     * Space-Saving com no máximo {@code capacidade} contadores. Um item novo com
+     * a estrutura cheia assume o lugar do menor contador, herdando o valor dele
+     * como erro máximo. Decrementos (cancelamentos) só valem para itens
+     * monitorados; a correção periódica acerta o resto.
+     */
+    static class TopK {
+        private final int capacidade;
+        private final Map<UUID, Contador> contadores = new HashMap<>();
+
+        TopK(int capacidade) {
+            this.capacidade = capacidade;
+        }
+
+        synchronized void somar(UUID id, String nome, long peso) {
+            Contador contador = contadores.get(id);
+            if (contador != null) {
+                contador.valor += peso;
+                if (nome != null) {
+                    contador.nome = nome;
+                }
+                if (contador.valor <= 0) {
+                    contadores.remove(id);
+                }
+                return;
+            }
+            if (peso <= 0) {
+                return;
+            }
+            if (contadores.size() < capacidade) {
+                contadores.put(id, new Contador(id, nome, peso, 0));
+                return;
+            }
+
+            Contador minimo = Collections.min(contadores.values(), Comparator.comparingLong(c -> c.valor));
+            contadores.remove(minimo.id);
+            contadores.put(id, new Contador(id, nome, minimo.valor + peso, minimo.valor));
+        }
+
+        synchronized List<ItemRanking> top(int n) {
+            return contadores.values().stream()
+                    .sorted(Comparator.comparingLong((Contador c) -> c.valor).reversed())
+                    .limit(n)
+                    .map(c -> new ItemRanking(c.id, c.nome, c.valor, c.erro > 0))
+                    .toList();
+        }
+    }
+
+    private static class Contador {
+        private final UUID id;
+        private String nome;
+        private long valor;
+        private final long erro;
+
+        Contador(UUID id, String nome, long valor, long erro) {
+            this.id = id;
+            this.nome = nome;
+            this.valor = valor;
+            this.erro = erro;
+        }
+    }
+
+    public static class ItemRanking {
+        private final UUID id;
+        private final String nome;
+        private final long vendas;
+        private final boolean aproximado;
+
+        public ItemRanking(UUID id, String nome, long vendas, boolean aproximado) {
+            this.id = id;
+            this.nome = nome;
+            this.vendas = vendas;
+            this.aproximado = aproximado;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        /**
+         * Quantidade vendida (produtos) ou número de pedidos (feirantes)
+         */
+        public long getVendas() {
+            return vendas;
+        }
+
+        /**
+         * true se a contagem pode estar superestimada desde a última correção
+         */
+        public boolean isAproximado() {
+            return aproximado;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.feirasmart.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Variantes redimensionadas das imagens de feira (miniatura, média, grande),
+ * geradas em segundo plano depois do upload e servidas por
+ * /uploads/feiras/{arquivo}?w=. Ficam em uploads/feiras/variantes como
+ * {arquivo sem extensão}-{largura}.jpg (ab/{hash}-640.jpg); enquanto não existem, o original é
+ * servido e a geração é (re)agendada.
+ */
+@Service
+public class VariantesImagemService {
+    private static final Logger log = LoggerFactory.getLogger(VariantesImagemService.class);
+
+    // O ImageIO do JDK não lê WebP: essas imagens são sempre servidas no original
+    private static final List<String> FORMATOS_SUPORTADOS = List.of("jpg", "jpeg", "png", "gif");
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ArquivosImagemService arquivosImagemService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("imagensExecutor")
+    private ThreadPoolTaskExecutor imagensExecutor;
+
+    @Value("${imagens.variantes.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${imagens.variantes.larguras:200,640,1280}")
+    private List<Integer> larguras;
+
+    @Value("${imagens.variantes.qualidade:0.8}")
+    private float qualidade;
+
+    @Value("${imagens.variantes.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${imagens.variantes.nova-tentativa-ms:60000}")
+    private long novaTentativaMs;
+
+    private final Set<String> pendentes = ConcurrentHashMap.newKeySet();
+    // Arquivos que nunca terão variante (formato não reconhecido, pixels demais): o original é definitivo
+    private final Set<String> falhas = ConcurrentHashMap.newKeySet();
+    // Falhas passageiras (disco cheio, erro de escrita): arquivo -> instante a partir do qual pode ser reagendado
+    private final Map<String, Long> tentarDepois = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void aoAlterarImagem(ImagemUploadEvent event) {
+        if (event.isExcluida()) {
+            excluir(event.getArquivo());
+        } else {
+            agendar(event.getArquivo());
+        }
+    }
+
+    /**
+     * Variante para a largura pedida: a menor configurada que a cubra. Null
+     * quando o original deve ser servido (largura acima da maior variante,
+     * formato sem suporte ou variante ainda não gerada, que é então agendada).
+     * Só deve ser chamado para originais que existem.
+     */
+    public ArquivosImagemService.ArquivoImagem buscar(String arquivo, int larguraPedida) throws IOException {
+        Integer largura = larguraVariante(arquivo, larguraPedida);
+        if (largura == null) {
+            return null;
+        }
+
+        ArquivosImagemService.ArquivoImagem variante = arquivosImagemService.buscar("variantes/" + nomeVariante(arquivo, largura));
+        if (variante != null) {
+            return variante;
+        }
+        agendar(arquivo);
+        return null;
+    }
+
+    /**
+     * Se uma variante para a largura pedida vai existir (agendada, em geração
+     * ou a reagendar, inclusive depois de uma falha passageira). Falso quando
+     * o original é a resposta definitiva: formato sem suporte, largura acima da
+     * maior variante ou imagem que não pode ser lida.
+     */
+    public boolean prevista(String arquivo, int larguraPedida) {
+        return larguraVariante(arquivo, larguraPedida) != null && !falhas.contains(arquivo);
+    }
+
+    // A menor largura configurada que cubra a pedida; null se nenhuma variante se aplica
+    private Integer larguraVariante(String arquivo, int larguraPedida) {
+        if (!habilitado || larguraPedida <= 0 || !suportado(arquivo)) {
+            return null;
+        }
+        Integer largura = null;
+        for (int candidata : larguras) {
+            if (candidata >= larguraPedida && (largura == null || candidata < largura)) {
+                largura = candidata;
+            }
+        }
+        return largura;
+    }
+
+    public void agendar(String arquivo) {
+        if (!habilitado || !suportado(arquivo) || falhas.contains(arquivo)) {
+            return;
+        }
+        Long depois = tentarDepois.get(arquivo);
+        if (depois != null && System.currentTimeMillis() < depois) {
+            return;
+        }
+        if (!pendentes.add(arquivo)) {
+            return;
+        }
+        try {
+            imagensExecutor.execute(() -> {
+                try {
+                    gerar(arquivo);
+                } finally {
+                    pendentes.remove(arquivo);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pendentes.remove(arquivo);
+            contar("recusada");
+        }
+    }
+
+    private void gerar(String arquivo) {
+        Path original = fileStorageService.resolveUploadPath().resolve("feiras").resolve(arquivo);
+        if (!Files.isRegularFile(original)) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            ImagemLida lida = ler(original);
+            BufferedImage imagem = lida.imagem();
+            // Com rotação de 90°, largura e altura exibidas são as do arquivo trocadas
+            boolean girada = lida.orientacao() >= 5;
+            int larguraExibida = girada ? imagem.getHeight() : imagem.getWidth();
+            int alturaExibida = girada ? imagem.getWidth() : imagem.getHeight();
+            Path diretorio = diretorio();
+            Files.createDirectories(diretorio);
+            for (int largura : larguras) {
+                // Sem ampliar: imagens menores que a variante só são recomprimidas
+                int alvo = Math.min(largura, larguraExibida);
+                int altura = Math.max(1, Math.round((float) alturaExibida * alvo / larguraExibida));
+                // Redimensiona na orientação do arquivo e só então gira, já no tamanho pequeno
+                BufferedImage variante = girada ? redimensionar(imagem, altura, alvo) : redimensionar(imagem, alvo, altura);
+                gravarJpeg(orientar(variante, lida.orientacao()), diretorio, nomeVariante(arquivo, largura));
+            }
+            Timer.builder("feirasmart.imagens.variantes.geracao")
+                    .description("Tempo para gerar todas as variantes de uma imagem")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            tentarDepois.remove(arquivo);
+            contar("gerada");
+        } catch (ImagemInvalidaException e) {
+            falhas.add(arquivo);
+            contar("falha");
+            log.warn("Variantes de {} não serão geradas: {}", arquivo, e.getMessage());
+        } catch (Exception e) {
+            // Pode dar certo depois: reagendada pelos próximos pedidos, passado o intervalo
+            tentarDepois.put(arquivo, System.currentTimeMillis() + novaTentativaMs);
+            contar("falha");
+            log.warn("Falha ao gerar variantes de {}, nova tentativa em {} ms: {}", arquivo, novaTentativaMs, e.toString());
+        }
+    }
+
+    // Confere as dimensões antes de decodificar, para não alocar imagens gigantes
+    private ImagemLida ler(Path original) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> leitores = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+            if (leitores == null || !leitores.hasNext()) {
+                throw new ImagemInvalidaException("Formato de imagem não reconhecido");
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                leitor.setInput(entrada, true, true);
+                long pixels = (long) leitor.getWidth(0) * leitor.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new ImagemInvalidaException("Imagem muito grande: " + leitor.getWidth(0) + "x" + leitor.getHeight(0));
+                }
+                BufferedImage imagem;
+                try {
+                    imagem = leitor.read(0);
+                } catch (IIOException e) {
+                    // Dados da imagem corrompidos ou truncados
+                    throw new ImagemInvalidaException("Imagem ilegível: " + e.getMessage());
+                }
+                return new ImagemLida(imagem, orientacaoExif(original));
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    /**
+     * Orientação EXIF (1 a 8) de um JPEG; 1 (sem rotação) para outros
+     * formatos, sem EXIF ou com EXIF ilegível. Fotos de celular em retrato
+     * costumam vir gravadas deitadas com orientação 6: o navegador gira o
+     * original, então as variantes (gravadas sem metadados) precisam já sair giradas.
+     * Lê os segmentos do arquivo direto: o leitor JPEG do ImageIO recusa os
+     * metadados quando o APP1 vem antes do APP0 (JFIF).
+     */
+    private static int orientacaoExif(Path original) {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(original)))) {
+            if (entrada.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marcador = entrada.readUnsignedShort();
+                // Segmentos com tamanho até o SOS (início dos dados da imagem); o EXIF vem antes dele
+                if (marcador < 0xFFC0 || marcador == 0xFFDA || marcador == 0xFFD9) {
+                    return 1;
+                }
+                int tamanho = entrada.readUnsignedShort() - 2;
+                if (tamanho < 0) {
+                    return 1;
+                }
+                if (marcador == 0xFFE1) {
+                    byte[] app1 = new byte[tamanho];
+                    entrada.readFully(app1);
+                    int orientacao = orientacaoTiff(app1);
+                    if (orientacao > 0) {
+                        return orientacao;
+                    }
+                } else {
+                    entrada.skipNBytes(tamanho);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return 1;
+        }
+    }
+
+    // APP1 "Exif\0\0" + cabeçalho TIFF: procura a tag 0x0112 (Orientation) no IFD0; 0 se não houver
+    private static int orientacaoTiff(byte[] app1) {
+        if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+            return 0;
+        }
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd > tiff.limit() - 2) {
+            return 0;
+        }
+        int entradas = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entradas; i++) {
+            int entrada = ifd + 2 + i * 12;
+            if (entrada + 12 > tiff.limit()) {
+                break;
+            }
+            // Tipo SHORT (3): o valor fica nos dois primeiros bytes do campo de valor
+            if ((tiff.getShort(entrada) & 0xFFFF) == 0x0112 && tiff.getShort(entrada + 2) == 3) {
+                int orientacao = tiff.getShort(entrada + 8) & 0xFFFF;
+                return orientacao >= 1 && orientacao <= 8 ? orientacao : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Aplica a orientação EXIF: espelhamentos (2, 4), 180° (3), rotações de
+     * 90° (6 horário, 8 anti-horário) e transposições (5, 7).
+     */
+    private static BufferedImage orientar(BufferedImage imagem, int orientacao) {
+        if (orientacao <= 1) {
+            return imagem;
+        }
+        int w = imagem.getWidth();
+        int h = imagem.getHeight();
+        boolean girada = orientacao >= 5;
+        int larguraSaida = girada ? h : w;
+        int[] origem = imagem.getRGB(0, 0, w, h, null, 0, w);
+        int[] destino = new int[origem.length];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int dx;
+                int dy;
+                switch (orientacao) {
+                    case 2 -> { dx = w - 1 - x; dy = y; }
+                    case 3 -> { dx = w - 1 - x; dy = h - 1 - y; }
+                    case 4 -> { dx = x; dy = h - 1 - y; }
+                    case 5 -> { dx = y; dy = x; }
+                    case 6 -> { dx = h - 1 - y; dy = x; }
+                    case 7 -> { dx = h - 1 - y; dy = w - 1 - x; }
+                    default -> { dx = y; dy = w - 1 - x; }
+                }
+                destino[dy * larguraSaida + dx] = origem[y * w + x];
+            }
+        }
+        BufferedImage orientada = new BufferedImage(larguraSaida, girada ? w : h, BufferedImage.TYPE_INT_RGB);
+        orientada.setRGB(0, 0, larguraSaida, girada ? w : h, destino, 0, larguraSaida);
+        return orientada;
+    }
+
+    /**
+     * Reduz pela metade enquanto o alvo estiver a mais de 2x (bilinear em um
+     * passo só serrilha reduções grandes) e faz o passo final no tamanho exato.
+     * Transparência vira fundo branco, já que a saída é JPEG.
+     */
+    private static BufferedImage redimensionar(BufferedImage imagem, int largura, int altura) {
+        BufferedImage atual = imagem;
+        int w = imagem.getWidth();
+        int h = imagem.getHeight();
+        do {
+            w = Math.max(w / 2, largura);
+            h = Math.max(h / 2, altura);
+            BufferedImage proxima = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = proxima.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, w, h);
+                g.drawImage(atual, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            atual = proxima;
+        } while (w != largura || h != altura);
+        return atual;
+    }
+
+    // Grava num temporário e move: quem serve a variante nunca lê um arquivo pela metade
+    private void gravarJpeg(BufferedImage imagem, Path diretorio, String nome) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        // O nome inclui o subdiretório do hash (ab/abcd...-640.jpg)
+        Path destino = diretorio.resolve(nome);
+        Files.createDirectories(destino.getParent());
+        Path temporario = Files.createTempFile(destino.getParent(), destino.getFileName().toString(), ".tmp");
+        try {
+            try (ImageOutputStream saida = ImageIO.createImageOutputStream(temporario.toFile())) {
+                ImageWriteParam parametros = escritor.getDefaultWriteParam();
+                parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                parametros.setCompressionQuality(qualidade);
+                parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                escritor.setOutput(saida);
+                escritor.write(null, new IIOImage(imagem, null, null), parametros);
+            } finally {
+                escritor.dispose();
+            }
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    private void excluir(String arquivo) {
+        falhas.remove(arquivo);
+        tentarDepois.remove(arquivo);
+        for (int largura : larguras) {
+            try {
+                Files.deleteIfExists(diretorio().resolve(nomeVariante(arquivo, largura)));
+            } catch (IOException e) {
+                log.warn("Falha ao excluir variante de {}: {}", arquivo, e.toString());
+            }
+        }
+    }
+
+    private Path diretorio() {
+        return fileStorageService.resolveUploadPath().resolve("feiras").resolve("variantes");
+    }
+
+    private static String nomeVariante(String arquivo, int largura) {
+        int ponto = arquivo.lastIndexOf('.');
+        return (ponto > 0 ? arquivo.substring(0, ponto) : arquivo) + "-" + largura + ".jpg";
+    }
+
+    private static boolean suportado(String arquivo) {
+        int ponto = arquivo.lastIndexOf('.');
+        return ponto > 0 && FORMATOS_SUPORTADOS.contains(arquivo.substring(ponto + 1).toLowerCase());
+    }
+
+    private record ImagemLida(BufferedImage imagem, int orientacao) {
+    }
+
+    // Falha que não muda com novas tentativas
+    private static class ImagemInvalidaException extends IOException {
+        ImagemInvalidaException(String message) {
+            super(message);
+        }
+    }
+
+    private void contar(String resultado) {
+        Counter.builder("feirasmart.imagens.variantes")
+                .description("Gerações de variantes de imagem por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,54 @@
+package com.feirasmart.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+/**
+ * Reconstrói os agregados de vendas a partir de pedidos, um mês por vez (cada
+ * mês numa transação). Só roda com vendas.rollup.backfill.habilitado=true;
+ * use na primeira implantação das tabelas ou para corrigir divergências.
+ */
+@Component
+public class VendasRollupBackfill implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(VendasRollupBackfill.class);
+
+    @Autowired
+    private VendasRollupService vendasRollupService;
+
+    @Value("${vendas.rollup.backfill.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${vendas.rollup.backfill.desde:}")
+    private String desde;
+
+    @Value("${vendas.rollup.zona:America/Sao_Paulo}")
+    private String zona;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado) {
+            return;
+        }
+
+        YearMonth inicio = !desde.isBlank()
+                ? YearMonth.parse(desde)
+                : vendasRollupService.primeiroMesComPedidos().orElse(null);
+        if (inicio == null) {
+            return;
+        }
+
+        YearMonth atual = YearMonth.now(ZoneId.of(zona));
+        for (YearMonth mes = inicio; !mes.isAfter(atual); mes = mes.plusMonths(1)) {
+            vendasRollupService.reconstruirMes(mes);
+            log.info("Agregados de vendas reconstruídos: {}", mes);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.feirasmart.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Agregados de vendas por hora, dia e mês (tabelas vendas_hora, vendas_dia e
+ * vendas_mes), por feirante, feira e produto. A linha com produto_id igual a
+ * {@link #TOTAL} (UUID zero) guarda o total do feirante naquela feira.
+ *
+ * Os agregados são atualizados de forma incremental a partir dos eventos de
+ * venda, depois do commit, e podem ser reconstruídos a partir de pedidos e
+ * pedido_itens com {@link #reconstruirMes(YearMonth)}. A coluna
+ * pedidos.agregado diz se o pedido está somado: cada evento só aplica os
+ * pedidos cuja marca ele troca, então um evento repetido, ou que chega depois
+ * de uma reconstrução que já contou o pedido, não soma duas vezes.
+ */
+@Service
+public class VendasRollupService {
+    private static final Logger log = LoggerFactory.getLogger(VendasRollupService.class);
+
+    public static final UUID TOTAL = new UUID(0L, 0L);
+
+    public enum Granularidade { HORA, DIA, SEMANA, MES }
+
+    public enum Agrupamento { NENHUM, PRODUTO, FEIRA }
+
+    private static final String[] TABELAS = {"vendas_hora", "vendas_dia", "vendas_mes"};
+
+    private static final String SQL_UPSERT =
+            "INSERT INTO %1$s (bucket, feirante_id, feira_id, produto_id, receita, quantidade, pedidos) " +
+            "VALUES (:bucket, :feiranteId, :feiraId, :produtoId, :receita, :quantidade, :pedidos) " +
+            "ON CONFLICT (bucket, feirante_id, feira_id, produto_id) DO UPDATE SET " +
+            "receita = %1$s.receita + EXCLUDED.receita, " +
+            "quantidade = %1$s.quantidade + EXCLUDED.quantidade, " +
+            "pedidos = %1$s.pedidos + EXCLUDED.pedidos, " +
+            "updated_at = now()";
+
+    // Marca os pedidos do evento e devolve só os que ainda não estavam no estado pedido
+    private static final String SQL_MARCAR =
+            "UPDATE pedidos SET agregado = :agregado WHERE id IN (:ids) AND agregado <> :agregado RETURNING id";
+
+    // Acerta a marca dos pedidos do mês antes da reconstrução, travando os que vão mudar:
+    // eventos desses pedidos ainda não aplicados esperam e depois não encontram o que trocar
+    private static final String SQL_MARCAR_MES =
+            "UPDATE pedidos SET agregado = (status <> 'cancelado') " +
+            "WHERE created_at >= CAST(:inicio AS TIMESTAMP) AT TIME ZONE :zona " +
+            "AND created_at < CAST(:fim AS TIMESTAMP) AT TIME ZONE :zona " +
+            "AND agregado <> (status <> 'cancelado')";
+
+    // Horas vêm direto das vendas; dias e meses são somados do nível abaixo.
+    // Cada pedido cai num único bucket, então somar a contagem de pedidos é exato.
+    private static final String SQL_RECONSTRUIR_HORA =
+            "INSERT INTO vendas_hora (bucket, feirante_id, feira_id, produto_id, receita, quantidade, pedidos) " +
+            "SELECT date_trunc('hour', p.created_at AT TIME ZONE :zona), p.feirante_id, p.feira_id, i.produto_id, " +
+            "SUM(i.preco * i.quantidade), SUM(i.quantidade), COUNT(DISTINCT p.id) " +
+            "FROM pedidos p JOIN pedido_itens i ON i.pedido_id = p.id " +
+            "WHERE p.created_at >= CAST(:inicio AS TIMESTAMP) AT TIME ZONE :zona " +
+            "AND p.created_at < CAST(:fim AS TIMESTAMP) AT TIME ZONE :zona AND p.agregado " +
+            "GROUP BY 1, 2, 3, 4 " +
+            "UNION ALL " +
+            "SELECT date_trunc('hour', p.created_at AT TIME ZONE :zona), p.feirante_id, p.feira_id, CAST(:total AS UUID), " +
+            "SUM(i.preco * i.quantidade), SUM(i.quantidade), COUNT(DISTINCT p.id) " +
+            "FROM pedidos p JOIN pedido_itens i ON i.pedido_id = p.id " +
+            "WHERE p.created_at >= CAST(:inicio AS TIMESTAMP) AT TIME ZONE :zona " +
+            "AND p.created_at < CAST(:fim AS TIMESTAMP) AT TIME ZONE :zona AND p.agregado " +
+            "GROUP BY 1, 2, 3";
+
+    private static final String SQL_RECONSTRUIR_DIA =
+            "INSERT INTO vendas_dia (bucket, feirante_id, feira_id, produto_id, receita, quantidade, pedidos) " +
+            "SELECT CAST(bucket AS DATE), feirante_id, feira_id, produto_id, SUM(receita), SUM(quantidade), SUM(pedidos) " +
+            "FROM vendas_hora WHERE bucket >= :inicio AND bucket < :fim GROUP BY 1, 2, 3, 4";
+
+    private static final String SQL_RECONSTRUIR_MES =
+            "INSERT INTO vendas_mes (bucket, feirante_id, feira_id, produto_id, receita, quantidade, pedidos) " +
+            "SELECT :mes, feirante_id, feira_id, produto_id, SUM(receita), SUM(quantidade), SUM(pedidos) " +
+            "FROM vendas_dia WHERE bucket >= :inicioData AND bucket < :fimData GROUP BY 2, 3, 4";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${vendas.rollup.zona:America/Sao_Paulo}")
+    private String zona;
+
+    /**
+     * Aplica o evento de venda nos três níveis, numa única transação, só para
+     * os pedidos que ainda não estavam somados (ou subtraídos, no cancelamento)
+     */
+    @Async("eventosExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoRegistrarVenda(PedidoVendaEvent event) {
+        try {
+            aplicar(event);
+        } catch (RuntimeException e) {
+            // O pedido já foi gravado; a diferença é corrigida pela reconstrução (vendas.rollup.backfill.habilitado)
+            log.error("Erro ao atualizar agregados de vendas", e);
+        }
+    }
+
+    public void aplicar(PedidoVendaEvent event) {
+        if (event.getItens().isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<UUID> ids = new HashSet<>();
+            for (PedidoVendaEvent.ItemVenda item : event.getItens()) {
+                ids.add(item.getPedidoId());
+            }
+            Set<UUID> marcados = new HashSet<>(jdbcTemplate.queryForList(SQL_MARCAR, new MapSqlParameterSource()
+                    .addValue("ids", ids)
+                    .addValue("agregado", event.getSinal() > 0), UUID.class));
+            if (!marcados.isEmpty()) {
+                somar(event, marcados);
+            }
+        });
+    }
+
+    private void somar(PedidoVendaEvent event, Set<UUID> pedidos) {
+        ZoneId zonaId = ZoneId.of(zona);
+        List<Map<Chave, Acumulado>> niveis = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+
+        for (PedidoVendaEvent.ItemVenda item : event.getItens()) {
+            if (!pedidos.contains(item.getPedidoId())) {
+                continue;
+            }
+            LocalDateTime local = item.getData().atZone(ZoneId.systemDefault())
+                    .withZoneSameInstant(zonaId).toLocalDateTime();
+            Object[] buckets = {
+                    Timestamp.valueOf(local.truncatedTo(ChronoUnit.HOURS)),
+                    Date.valueOf(local.toLocalDate()),
+                    Date.valueOf(local.toLocalDate().withDayOfMonth(1))
+            };
+            for (int nivel = 0; nivel < buckets.length; nivel++) {
+                Map<Chave, Acumulado> agregados = niveis.get(nivel);
+                agregados.computeIfAbsent(new Chave(buckets[nivel], item.getFeiranteId(), item.getFeiraId(),
+                        item.getProdutoId()), c -> new Acumulado()).somar(item);
+                agregados.computeIfAbsent(new Chave(buckets[nivel], item.getFeiranteId(), item.getFeiraId(),
+                        TOTAL), c -> new Acumulado()).somar(item);
+            }
+        }
+
+        BigDecimal sinal = BigDecimal.valueOf(event.getSinal());
+        for (int nivel = 0; nivel < TABELAS.length; nivel++) {
+            // Ordem fixa das linhas evita deadlock entre eventos concorrentes
+            MapSqlParameterSource[] lote = niveis.get(nivel).entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(Chave.ORDEM))
+                    .map(e -> new MapSqlParameterSource()
+                            .addValue("bucket", e.getKey().bucket)
+                            .addValue("feiranteId", e.getKey().feiranteId)
+                            .addValue("feiraId", e.getKey().feiraId)
+                            .addValue("produtoId", e.getKey().produtoId)
+                            .addValue("receita", e.getValue().receita.multiply(sinal))
+                            .addValue("quantidade", e.getValue().quantidade * event.getSinal())
+                            .addValue("pedidos", e.getValue().pedidos.size() * event.getSinal()))
+                    .toArray(MapSqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(String.format(SQL_UPSERT, TABELAS[nivel]), lote);
+        }
+    }
+
+    /**
+     * Reconstrói os agregados de um mês (horas, dias e o mês) a partir de
+     * pedidos e pedido_itens, numa transação. Pode rodar com vendas
+     * acontecendo: cada pedido entra uma vez, pela reconstrução ou pelo seu
+     * evento (pedidos.agregado).
+     */
+    public void reconstruirMes(YearMonth mes) {
+        LocalDate inicioData = mes.atDay(1);
+        LocalDate fimData = mes.plusMonths(1).atDay(1);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("zona", zona)
+                .addValue("total", TOTAL)
+                .addValue("inicio", Timestamp.valueOf(inicioData.atStartOfDay()))
+                .addValue("fim", Timestamp.valueOf(fimData.atStartOfDay()))
+                .addValue("inicioData", Date.valueOf(inicioData))
+                .addValue("fimData", Date.valueOf(fimData))
+                .addValue("mes", Date.valueOf(inicioData));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(SQL_MARCAR_MES, params);
+            // Eventos que já somaram nas tabelas terminam antes de elas serem apagadas; os seguintes
+            // esperam a reconstrução e somam por cima dela. As travas de pedidos vêm antes, como nos eventos
+            jdbcTemplate.getJdbcTemplate().execute("LOCK TABLE vendas_hora, vendas_dia, vendas_mes IN SHARE ROW EXCLUSIVE MODE");
+            jdbcTemplate.update("DELETE FROM vendas_hora WHERE bucket >= :inicio AND bucket < :fim", params);
+            jdbcTemplate.update("DELETE FROM vendas_dia WHERE bucket >= :inicioData AND bucket < :fimData", params);
+            jdbcTemplate.update("DELETE FROM vendas_mes WHERE bucket = :mes", params);
+            jdbcTemplate.update(SQL_RECONSTRUIR_HORA, params);
+            jdbcTemplate.update(SQL_RECONSTRUIR_DIA, params);
+            jdbcTemplate.update(SQL_RECONSTRUIR_MES, params);
+        });
+    }
+
+    /**
+     * Mês do pedido mais antigo, ou vazio se não houver pedidos
+     */
+    public Optional<YearMonth> primeiroMesComPedidos() {
+        Timestamp primeiro = jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT MIN(created_at) FROM pedidos", Timestamp.class);
+        if (primeiro == null) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.from(primeiro.toInstant().atZone(ZoneId.of(zona))));
+    }
+
+    /**
+     * Série de vendas dos feirantes do usuário, lida da tabela de agregados
+     * mais grossa que atende a granularidade. Intervalo inclusivo; para MES
+     * (e SEMANA) o início é alinhado ao começo do período.
+     */
+    public List<PontoVendas> consultar(UUID userId, Granularidade granularidade, LocalDate inicio, LocalDate fim,
+                                       Agrupamento agrupamento, UUID feiraId) {
+        String tabela;
+        String periodo;
+        Object de;
+        Object ate;
+        switch (granularidade) {
+            case HORA -> {
+                tabela = "vendas_hora";
+                periodo = "v.bucket";
+                de = Timestamp.valueOf(inicio.atStartOfDay());
+                ate = Timestamp.valueOf(fim.plusDays(1).atStartOfDay());
+            }
+            case DIA, SEMANA -> {
+                tabela = "vendas_dia";
+                periodo = granularidade == Granularidade.DIA ? "v.bucket" : "CAST(date_trunc('week', v.bucket) AS DATE)";
+                de = Date.valueOf(granularidade == Granularidade.DIA ? inicio : inicio.with(DayOfWeek.MONDAY));
+                ate = Date.valueOf(fim.plusDays(1));
+            }
+            default -> {
+                tabela = "vendas_mes";
+                periodo = "v.bucket";
+                de = Date.valueOf(inicio.withDayOfMonth(1));
+                ate = Date.valueOf(fim.plusDays(1));
+            }
+        }
+
+        String colunas;
+        String join;
+        String filtroProduto;
+        switch (agrupamento) {
+            case PRODUTO -> {
+                colunas = "v.produto_id AS id, pr.nome AS nome";
+                join = "LEFT JOIN produtos pr ON pr.id = v.produto_id ";
+                filtroProduto = "v.produto_id <> :total";
+            }
+            case FEIRA -> {
+                colunas = "v.feira_id AS id, fa.nome AS nome";
+                join = "JOIN feiras fa ON fa.id = v.feira_id ";
+                filtroProduto = "v.produto_id = :total";
+            }
+            default -> {
+                colunas = "CAST(NULL AS UUID) AS id, CAST(NULL AS TEXT) AS nome";
+                join = "";
+                filtroProduto = "v.produto_id = :total";
+            }
+        }
+
+        String sql = "SELECT " + periodo + " AS periodo, " + colunas + ", " +
+                "SUM(v.receita) AS receita, SUM(v.quantidade) AS quantidade, SUM(v.pedidos) AS pedidos " +
+                "FROM " + tabela + " v " + join +
+                "WHERE v.feirante_id IN (SELECT id FROM feirantes WHERE user_id = :userId) " +
+                "AND " + filtroProduto + " AND v.bucket >= :de AND v.bucket < :ate " +
+                (feiraId != null ? "AND v.feira_id = :feiraId " : "") +
+                "GROUP BY 1, 2, 3 " +
+                "HAVING SUM(v.pedidos) > 0 " +
+                "ORDER BY 1, 4 DESC";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("total", TOTAL)
+                .addValue("de", de)
+                .addValue("ate", ate)
+                .addValue("feiraId", feiraId);
+
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new PontoVendas(
+                rs.getObject("periodo").toString(),
+                rs.getObject("id", UUID.class),
+                rs.getString("nome"),
+                rs.getBigDecimal("receita"),
+                rs.getLong("quantidade"),
+                rs.getLong("pedidos")));
+    }
+
+    private record Chave(Object bucket, UUID feiranteId, UUID feiraId, UUID produtoId) {
+        static final Comparator<Chave> ORDEM = Comparator.comparing(Chave::feiranteId)
+                .thenComparing(Chave::feiraId)
+                .thenComparing(Chave::produtoId)
+                .thenComparing(chave -> chave.bucket().toString());
+    }
+
+    private static class Acumulado {
+        private BigDecimal receita = BigDecimal.ZERO;
+        private long quantidade;
+        private final Set<UUID> pedidos = new HashSet<>();
+
+        void somar(PedidoVendaEvent.ItemVenda item) {
+            receita = receita.add(item.getReceita());
+            quantidade += item.getQuantidade();
+            pedidos.add(item.getPedidoId());
+        }
+    }
+
+    public static class PontoVendas {
+        private final String periodo;
+        private final UUID id;
+        private final String nome;
+        private final BigDecimal receita;
+        private final long quantidade;
+        private final long pedidos;
+
+        public PontoVendas(String periodo, UUID id, String nome, BigDecimal receita, long quantidade, long pedidos) {
+            this.periodo = periodo;
+            this.id = id;
+            this.nome = nome;
+            this.receita = receita;
+            this.quantidade = quantidade;
+            this.pedidos = pedidos;
+        }
+
+        public String getPeriodo() {
+            return periodo;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public BigDecimal getReceita() {
+            return receita;
+        }
+
+        public long getQuantidade() {
+            return quantidade;
+        }
+
+        public long getPedidos() {
+            return pedidos;
+        }
+    }
+}
@@ -273,6 +273,10 @@ export const api = {
     
     get: (id: string) =>
       apiGet<any>(`/feiras/${id}`),
+
+    // Feira, feirantes e produtos disponíveis numa única chamada
+    snapshot: (id: string) =>
+      apiGet<{ feira: any; feirantes: any[] }>(`/feiras/${id}/snapshot`),
     
     create: (data: any) =>
       apiPost<any>('/feiras', data),
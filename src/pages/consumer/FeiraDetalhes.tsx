@@ -41,23 +41,11 @@ export default function FeiraDetalhes() {
 
   useEffect(() => {
     if (id) {
-      fetchFeira();
       fetchFeirantes();
     }
   }, [id]);
 
-  const fetchFeira = async () => {
-    if (!id) return;
-    
-    try {
-      const data = await api.feiras.get(id);
-      setFeira(data);
-    } catch (err: any) {
-      console.error('Erro ao buscar feira:', err);
-      setError('Erro ao carregar informações da feira.');
-    }
-  };
-
+  // Uma única chamada traz a feira, os feirantes e os produtos disponíveis de cada um
   const fetchFeirantes = async () => {
     if (!id) return;
     
@@ -65,40 +53,22 @@ export default function FeiraDetalhes() {
       setIsLoading(true);
       setError(null);
       
-      // Buscar feirantes da feira
-      const feirantesData = await api.feirantes.list({ feira_id: id });
+      const snapshot = await api.feiras.snapshot(id);
+      setFeira(snapshot?.feira ?? null);
       
-      if (feirantesData && Array.isArray(feirantesData) && feirantesData.length > 0) {
-        // Buscar quantidade de produtos para cada feirante
-        const feirantesComProdutos = await Promise.all(
-          feirantesData.map(async (feirante: any) => {
-            try {
-              const produtos = await api.produtos.list({ 
-                feirante_id: feirante.id,
-                disponivel: true 
-              });
-              return {
-                ...feirante,
-                produtosCount: Array.isArray(produtos) ? produtos.length : 0,
-                nome_feirante: feirante.user?.nome || feirante.nome_feirante,
-              };
-            } catch (err) {
-              console.error(`Erro ao buscar produtos do feirante ${feirante.id}:`, err);
-              return {
-                ...feirante,
-                produtosCount: 0,
-              };
-            }
-          })
-        );
-        
-        setFeirantes(feirantesComProdutos);
-      } else {
-        setFeirantes([]);
-      }
+      const feirantesData = snapshot?.feirantes ?? [];
+      setFeirantes(
+        feirantesData.map((feirante: any) => ({
+          ...feirante,
+          nome_estande: feirante.nome_estande ?? feirante.nomeEstande,
+          num_avaliacoes: feirante.num_avaliacoes ?? feirante.numAvaliacoes,
+          produtosCount: Array.isArray(feirante.produtos) ? feirante.produtos.length : 0,
+          nome_feirante: feirante.user?.nome || feirante.nome_feirante,
+        }))
+      );
     } catch (err: any) {
-      console.error('Erro ao buscar feirantes:', err);
-      setError(err.message || 'Erro ao carregar feirantes.');
+      console.error('Erro ao buscar feira:', err);
+      setError(err.message || 'Erro ao carregar informações da feira.');
       setFeirantes([]); // Garantir que a lista seja limpa em caso de erro
     } finally {
       setIsLoading(false);